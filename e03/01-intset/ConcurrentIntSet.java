@@ -0,0 +1,145 @@
+/**
+ * OVERVIEW: Le istanze di questa classe rappresentano insiemi (non limitati) di
+ * interi, con lo stesso contratto di IntSet, che possono essere usati
+ * contemporaneamente da più thread. Gli oggetti di questo tipo sono mutabili.
+ *
+ * Gli elementi sono distribuiti, in base al loro hash, fra un numero fisso di
+ * segmenti indipendenti (ognuno è un HashIntSet protetto dal proprio lock):
+ * thread che lavorano su segmenti diversi non si bloccano a vicenda. Ogni
+ * elemento appartiene ad un solo segmento, quindi insert, remove e contains
+ * sono linearizzabili. size e choose esaminano i segmenti uno alla volta: se
+ * nel frattempo altri thread modificano l'insieme il risultato riflette uno
+ * stato intermedio, come avviene per ConcurrentHashMap.
+ *
+ * Funzione di astrazione: AF(segments) = unione di AF(segments[i]) per 0 <= i
+ * < segments.length
+ *
+ * Invariante di rappresentazione: segments != null, segments.length è una
+ * potenza di 2, ogni segmento è diverso da null e contiene solo elementi x
+ * tali che segmentOf(x) è quel segmento
+ */
+public class ConcurrentIntSet {
+
+    /** Segmenti che contengono gli elementi, ognuno usato come lock di sé stesso */
+    private final HashIntSet[] segments;
+
+    /** Numero di bit usati per scegliere il segmento */
+    private final int shift;
+
+    /**
+     * Post-condizioni: Inizializza un nuovo insieme di interi vuoto, con un numero
+     * di segmenti adeguato al numero di processori disponibili
+     */
+    public ConcurrentIntSet() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Post-condizioni: Inizializza un nuovo insieme di interi vuoto, con almeno
+     * concurrency segmenti. Solleva IllegalArgumentException se concurrency non è
+     * positivo
+     */
+    public ConcurrentIntSet(int concurrency) {
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("concurrency deve essere positivo");
+        int bits = 0;
+        while ((1 << bits) < concurrency && bits < 16)
+            bits++;
+        segments = new HashIntSet[1 << bits];
+        for (int i = 0; i < segments.length; i++)
+            segments[i] = new HashIntSet();
+        shift = 32 - bits;
+    }
+
+    /**
+     * Effetti-collaterali: potrebbe modificare this: this_post = this + {x}
+     * Post-condizioni: Aggiunge x all'insieme
+     */
+    public void insert(int x) {
+        HashIntSet segment = segmentOf(x);
+        synchronized (segment) {
+            segment.insert(x);
+        }
+    }
+
+    /**
+     * Effetti-collaterali: potrebbe modificare this: this_post = this - {x}
+     * Post-condizioni: Rimuove x dall'insieme
+     */
+    public void remove(int x) {
+        HashIntSet segment = segmentOf(x);
+        synchronized (segment) {
+            segment.remove(x);
+        }
+    }
+
+    /**
+     * Post-condizioni: restituisce true se la x è in this, false altrimenti
+     */
+    public boolean contains(int x) {
+        HashIntSet segment = segmentOf(x);
+        synchronized (segment) {
+            return segment.contains(x);
+        }
+    }
+
+    /**
+     * Post-condizioni: Restituisce un intero scelto arbitrariamente tra gli
+     * elementi di una istanza, e sollevare un'eccezione di tipo EmptyException se
+     * l'insieme è vuoto
+     */
+    public int choose() {
+        for (HashIntSet segment : segments) {
+            synchronized (segment) {
+                if (segment.size() > 0)
+                    return segment.choose();
+            }
+        }
+        throw new EmptyException("Impossibile estrarre elemento da set vuoto");
+    }
+
+    /**
+     * Post-condizioni: Restituisce la cardinalità dell'insieme this
+     */
+    public int size() {
+        int size = 0;
+        for (HashIntSet segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Post-condizioni: restituisce una rappresentazione testuale di this
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (HashIntSet segment : segments) {
+            String elements;
+            synchronized (segment) {
+                if (segment.size() == 0)
+                    continue;
+                elements = segment.toString();
+            }
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(elements, 1, elements.length() - 1);
+        }
+        return sb.append("]").toString();
+    }
+
+    /**
+     * Post-condizioni: restituisce il segmento che può contenere x. Uso i bit alti
+     * di un hash diverso da quello di HashIntSet, così gli elementi di uno stesso
+     * segmento restano ben distribuiti nella sua tabella
+     */
+    private HashIntSet segmentOf(int x) {
+        if (shift == 32)
+            return segments[0];
+        return segments[(x * 0x85EBCA6B) >>> shift];
+    }
+
+}
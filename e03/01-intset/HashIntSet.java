@@ -0,0 +1,264 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * OVERVIEW: Le istanze di questa classe rappresentano insiemi (non limitati) di
+ * interi, con lo stesso contratto di IntSet. Gli oggetti di questo tipo sono
+ * mutabili.
+ *
+ * Gli elementi sono memorizzati in un array di int compatto (elements), mentre
+ * una tabella hash ad indirizzamento aperto (index) associa ad ogni elemento la
+ * sua posizione in elements. In questo modo insert, remove e contains costano
+ * O(1) atteso senza creare oggetti Integer, e choose resta O(1) grazie alla
+ * rimozione per scambio con l'ultimo elemento.
+ *
+ * Funzione di astrazione: AF(elements, size) = {elements[i] | 0 <= i < size}
+ *
+ * Invariante di rappresentazione: elements != null, index != null, la
+ * lunghezza di index è una potenza di 2 almeno doppia di size. In elements[0 ..
+ * size) non esistono duplicati. Per ogni 0 <= i < size esiste esattamente una
+ * cella di index che vale i + 1 e si trova nella sequenza di scansione lineare
+ * di elements[i]; ogni altra cella di index vale 0 (cella libera)
+ */
+public class HashIntSet {
+
+    /** Capacità iniziale della tabella hash (potenza di 2) */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Elementi dell'insieme, compatti nelle prime size posizioni */
+    private int[] elements;
+
+    /** Numero di elementi dell'insieme */
+    private int size;
+
+    /**
+     * Tabella hash ad indirizzamento aperto: ogni cella contiene la posizione in
+     * elements aumentata di 1, oppure 0 se la cella è libera
+     */
+    private int[] index;
+
+    /**
+     * Post-condizioni: Inizializza un nuovo insieme di interi vuoto
+     */
+    public HashIntSet() {
+        elements = new int[INITIAL_CAPACITY / 2];
+        index = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Post-condizioni: Inizializza un nuovo insieme di interi vuoto, con spazio
+     * sufficiente per expected elementi senza dover ricostruire la tabella
+     */
+    private HashIntSet(int expected) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < expected * 2)
+            capacity *= 2;
+        elements = new int[capacity / 2];
+        index = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * Effetti-collaterali: potrebbe modificare this: this_post = this + {x}
+     * Post-condizioni: Aggiunge x all'insieme
+     */
+    public void insert(int x) {
+        int slot = find(x);
+        if (index[slot] != 0)
+            return;
+
+        if (size == elements.length)
+            elements = Arrays.copyOf(elements, elements.length * 2);
+        elements[size] = x;
+        index[slot] = ++size;
+
+        // Mantengo il fattore di carico sotto 1/2
+        if (size * 2 > index.length)
+            rehash(index.length * 2);
+    }
+
+    /**
+     * Effetti-collaterali: potrebbe modificare this: this_post = this - {x}
+     * Post-condizioni: Rimuove x dall'insieme
+     */
+    public void remove(int x) {
+        int slot = find(x);
+        if (index[slot] == 0)
+            return;
+
+        // Sposto l'ultimo elemento nella posizione di x, come in IntSet
+        int position = index[slot] - 1;
+        int last = elements[size - 1];
+        index[find(last)] = position + 1;
+        elements[position] = last;
+        size--;
+
+        deleteSlot(slot);
+    }
+
+    /**
+     * Post-condizioni: Restituisce un intero scelto arbitrariamente tra gli
+     * elementi di una istanza, e sollevare un'eccezione di tipo EmptyException se
+     * l'insieme è vuoto
+     */
+    public int choose() {
+        if (size == 0)
+            throw new EmptyException("Impossibile estrarre elemento da set vuoto");
+        // Prendo l'ultimo per le scelte implementative del remove
+        return elements[size - 1];
+    }
+
+    /**
+     * Post-condizioni: Restituisce la cardinalità dell'insieme this
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Post-condizioni: restituisce true se la x è in this, false altrimenti
+     */
+    public boolean contains(int x) {
+        return index[find(x)] != 0;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo insieme corrispondente all'unione di
+     * this e other, solleva NullPointerException se other è null
+     */
+    public HashIntSet union(HashIntSet other) {
+        Objects.requireNonNull(other);
+        HashIntSet bigger = size >= other.size ? this : other;
+        HashIntSet smaller = size >= other.size ? other : this;
+        HashIntSet result = new HashIntSet(size + other.size);
+        for (int i = 0; i < bigger.size; i++)
+            result.insert(bigger.elements[i]);
+        for (int i = 0; i < smaller.size; i++)
+            result.insert(smaller.elements[i]);
+        return result;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo insieme corrispondente
+     * all'intersezione di this e other, solleva NullPointerException se other è
+     * null
+     */
+    public HashIntSet intersect(HashIntSet other) {
+        Objects.requireNonNull(other);
+        // Scorro l'insieme più piccolo e cerco nel più grande
+        HashIntSet bigger = size >= other.size ? this : other;
+        HashIntSet smaller = size >= other.size ? other : this;
+        HashIntSet result = new HashIntSet(smaller.size);
+        for (int i = 0; i < smaller.size; i++)
+            if (bigger.contains(smaller.elements[i]))
+                result.insert(smaller.elements[i]);
+        return result;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo insieme contenente gli elementi di
+     * this che non appartengono ad other, solleva NullPointerException se other è
+     * null
+     */
+    public HashIntSet difference(HashIntSet other) {
+        Objects.requireNonNull(other);
+        HashIntSet result = new HashIntSet(size);
+        for (int i = 0; i < size; i++)
+            if (!other.contains(elements[i]))
+                result.insert(elements[i]);
+        return result;
+    }
+
+    /**
+     * Post-condizioni: restituisce true se ogni elemento di this appartiene ad
+     * other, false altrimenti. Solleva NullPointerException se other è null
+     */
+    public boolean isSubsetOf(HashIntSet other) {
+        Objects.requireNonNull(other);
+        if (size > other.size)
+            return false;
+        for (int i = 0; i < size; i++)
+            if (!other.contains(elements[i]))
+                return false;
+        return true;
+    }
+
+    /**
+     * Post-condizioni: restituisce una rappresentazione testuale di this
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(elements[i]);
+        }
+        return sb.append("]").toString();
+    }
+
+    /**
+     * Post-condizioni: restituisce la cella iniziale della sequenza di scansione
+     * di x in una tabella con maschera mask
+     */
+    private static int home(int x, int mask) {
+        int h = x * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Post-condizioni: restituisce la cella di index che contiene x, oppure la
+     * prima cella libera della sequenza di scansione di x se x non è presente
+     */
+    private int find(int x) {
+        int mask = index.length - 1;
+        int slot = home(x, mask);
+        while (index[slot] != 0 && elements[index[slot] - 1] != x)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Effetti-collaterali: modifica index
+     *
+     * Post-condizioni: libera la cella slot spostando all'indietro le celle
+     * successive della stessa sequenza di scansione, in modo che ogni elemento
+     * resti raggiungibile a partire dalla sua cella iniziale
+     */
+    private void deleteSlot(int slot) {
+        int mask = index.length - 1;
+        int gap = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            int entry = index[i];
+            if (entry == 0)
+                break;
+            int home = home(elements[entry - 1], mask);
+            // La cella i può occupare gap solo se home non cade in (gap, i]
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                index[gap] = entry;
+                gap = i;
+            }
+        }
+        index[gap] = 0;
+    }
+
+    /**
+     * Effetti-collaterali: modifica index
+     *
+     * Post-condizioni: ricostruisce la tabella hash con capacity celle
+     */
+    private void rehash(int capacity) {
+        index = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = home(elements[i], mask);
+            while (index[slot] != 0)
+                slot = (slot + 1) & mask;
+            index[slot] = i + 1;
+        }
+    }
+
+}
@@ -1,20 +1,24 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
  * OVERVIEW: Le istanze di questa classe rappresentano dei Polinomi. Gli oggetti
- * di questo tipo sono immutabili
+ * di questo tipo sono immutabili. I monomi con coefficente diverso da 0 sono
+ * memorizzati in due array paralleli ordinati per grado crescente
  */
 public class Polinomio {
-    private final List<Monomio> elements;
+    /** I gradi dei monomi con coefficente diverso da 0, in ordine crescente */
+    private final int[] degrees;
+
+    /** I coefficenti dei monomi: coeffs[i] è il coefficente di grado degrees[i] */
+    private final int[] coeffs;
 
     /**
      * Post-condizioni: inizializza un nuovo polinomio 0
      */
     public Polinomio() {
-        elements = new ArrayList<>();
-        elements.add(new Monomio(0, 0));
+        degrees = new int[0];
+        coeffs = new int[0];
     }
 
     /**
@@ -24,88 +28,74 @@ public class Polinomio {
     public Polinomio(int c, int n) {
         if (n < 0)
             throw new NegativeExponentException();
-        elements = new ArrayList<>();
-        elements.add(new Monomio(c, n));
+        degrees = c == 0 ? new int[0] : new int[] { n };
+        coeffs = c == 0 ? new int[0] : new int[] { c };
     }
 
     /**
      * <p>
-     * Pre-condizioni: i monomi contenuti in nuoviElementi devono essere tutti di grado diverso fra loro
-     * <p>
-     * Effetti-collaterali: potrebbe modificare nuoviElementi, se all'interno della
-     * lista sono presenti monomi simili viene conservato solo il primo trovato
+     * Pre-condizioni: degrees è ordinato in ordine strettamente crescente, ogni
+     * elemento di coeffs è diverso da 0 e i due array hanno la stessa lunghezza
      * <p>
-     * Post-condizioni: inizializza un nuovo polinomio con i monomi presenti in
-     * elementi
-     * <p>
-     * solleva NullPointerException se la lista in input è null
+     * Post-condizioni: inizializza un nuovo polinomio con i monomi in degrees e
+     * coeffs, senza copiarli
      */
-    private Polinomio(List<Monomio> nuoviElementi) {
-        if (nuoviElementi.size() == 0)
-            nuoviElementi.add(new Monomio(0, 0));
-        this.elements = new ArrayList<>(nuoviElementi);
+    private Polinomio(int[] degrees, int[] coeffs) {
+        this.degrees = degrees;
+        this.coeffs = coeffs;
     }
 
     /**
      * post-condizioni: restituisce un intero corrispondente al coefficente del
      * polinomio al grado degree
      * <p>
-     * solleva IllegalArgumentException se degree è maggiore del grado di this o è
-     * minore di 0
+     * solleva IllegalArgumentException se degree è maggiore del grado di this
      */
     public int coeff(int degree) {
         if (degree() < degree)
             throw new IllegalArgumentException("Il polinomio ha grado " + degree());
-        int coeff = 0;
-        for (Monomio actual : elements) {
-            if (actual.degree() == degree)
-                coeff = actual.coeff();
-        }
-        return coeff;
+        int i = Arrays.binarySearch(degrees, degree);
+        return i >= 0 ? coeffs[i] : 0;
     }
 
     /**
      * Post-condizioni: restituisce un intero corrispondente al grado di this
      */
     public int degree() {
-        int degree = 0;
-        for (Monomio actual : elements)
-            if (actual.degree() > degree)
-                degree = actual.degree();
-        return degree;
-    }
-
-    // E' davvero una copia totale?
-    private List<Monomio> getElements() {
-        return new ArrayList<>(elements);
+        return degrees.length == 0 ? 0 : degrees[degrees.length - 1];
     }
 
     /**
      * Post-condizioni: restituisce un nuovo Polinomio corrispondente alla somma di
-     * this con il polinomio in input
+     * this con il polinomio in input, fondendo i monomi dei due polinomi in ordine
+     * di grado
      * <p>
      * solleva NullPointerException se il Polinomio in input è null
      */
     public Polinomio add(Polinomio q) {
         Objects.requireNonNull(q);
-        List<Monomio> qElements = q.getElements();
-
-        for (Monomio actual : getElements()) {
-            boolean foundSimilar = false;
-            for (Monomio existent : qElements) {
-                if (actual.similar(existent)) {
-                    qElements.remove(existent);
-                    if (actual.coeff() != (existent.coeff() * -1)) {
-                        qElements.add(actual.addSimilar(existent));
-                    }
-                    foundSimilar = true;
-                    break;
+        int n = degrees.length, m = q.degrees.length;
+        int[] d = new int[n + m];
+        int[] c = new int[n + m];
+        int i = 0, j = 0, k = 0;
+        while (i < n || j < m) {
+            if (j == m || (i < n && degrees[i] < q.degrees[j])) {
+                d[k] = degrees[i];
+                c[k++] = coeffs[i++];
+            } else if (i == n || q.degrees[j] < degrees[i]) {
+                d[k] = q.degrees[j];
+                c[k++] = q.coeffs[j++];
+            } else {
+                int sum = coeffs[i] + q.coeffs[j];
+                if (sum != 0) {
+                    d[k] = degrees[i];
+                    c[k++] = sum;
                 }
+                i++;
+                j++;
             }
-            if (!(foundSimilar))
-                qElements.add(actual);
         }
-        return new Polinomio(qElements);
+        return new Polinomio(Arrays.copyOf(d, k), Arrays.copyOf(c, k));
     }
 
     /**
@@ -126,15 +116,38 @@ public class Polinomio {
      * solleva NullPointerException se il Polinomio in input è null
      */
     public Polinomio mul(Polinomio q) {
-        Polinomio result = new Polinomio(0, 0);
-        List<Monomio> qElements = q.getElements();
-        for (Monomio actual : getElements()) {
-            for (Monomio moltiplicatore : qElements) {
-                result = result.add(new Polinomio(actual.coeff() * moltiplicatore.coeff(),
-                        actual.degree() + moltiplicatore.degree()));
+        Objects.requireNonNull(q);
+        Polinomio result = new Polinomio();
+        for (int i = 0; i < degrees.length; i++)
+            result = result.add(q.mulMonomio(coeffs[i], degrees[i]));
+        return result;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo Polinomio corrispondente al prodotto di
+     * this per il monomio cx^n, scartando i prodotti che vanno in overflow a 0
+     * <p>
+     * solleva NegativeExponentException se un grado del prodotto non è
+     * rappresentabile come int
+     */
+    private Polinomio mulMonomio(int c, int n) {
+        int[] d = new int[degrees.length];
+        int[] p = new int[coeffs.length];
+        int k = 0;
+        for (int i = 0; i < degrees.length; i++) {
+            int degree;
+            try {
+                degree = Math.addExact(degrees[i], n);
+            } catch (ArithmeticException e) {
+                throw new NegativeExponentException();
+            }
+            int product = coeffs[i] * c;
+            if (product != 0) {
+                d[k] = degree;
+                p[k++] = product;
             }
         }
-        return result;
+        return new Polinomio(Arrays.copyOf(d, k), Arrays.copyOf(p, k));
     }
 
     /**
@@ -142,136 +155,22 @@ public class Polinomio {
      * opposto a this
      */
     public Polinomio minus() {
-        List<Monomio> attuale = getElements();
-        ArrayList<Monomio> opposto = new ArrayList<>();
-        for (Monomio actual : attuale) {
-            opposto.add(actual.minus());
-        }
-        return new Polinomio(opposto);
+        int[] opposto = new int[coeffs.length];
+        for (int i = 0; i < coeffs.length; i++)
+            opposto[i] = -coeffs[i];
+        return new Polinomio(degrees, opposto);
     }
 
     @Override
     public String toString() {
-        String returnString = "Polinomio: {";
-        for (int i = 0; i < elements.size() - 1; i++) {
-            returnString += elements.get(i) + " + ";
-        }
-        if (elements.size() > 0) {
-            returnString += elements.get(elements.size() - 1);
-        }
-        returnString += "} grado = " + this.degree();
-        return returnString;
-    }
-
-    /**
-     * OVERVIEW: Le istanze di questa classe rappresentano dei monomi. Gli oggetti
-     * di questo tipo sono immutabili. Un Monomio è valido con qualsiasi
-     * combinazione di coeff e degree tale che degree sia maggiore o uguale a 0,
-     * ogni monomio con coefficente 0 è il monomio nullo ed ha valore 0
-     */
-    private class Monomio {
-        private final int coeff;
-        private final int degree;
-
-        /**
-         * Post-condizioni: Inizializza un nuovo monomio con coefficente coeff di grado
-         * degree (coeff X^degree), se il coefficente è uguale a zero viene creato in
-         * Monomio 0X^degree, il monomio nullo.
-         * <p>
-         * Solleva IllegalArgumentException se degree è minore di 0
-         */
-        public Monomio(final int coeff, final int degree) {
-            if (degree < 0)
-                throw new IllegalArgumentException("Il grado del Monomio deve essere >= 0");
-            this.coeff = coeff;
-            this.degree = degree;
-        }
-
-        /**
-         * Post-condizioni: restituisce un intero corrispondente al grado del monomio
-         */
-        public int degree() {
-            return this.degree;
-        }
-
-        /**
-         * Post-condizioni: restituisce un intero corrispondente al coefficente del
-         * monomio
-         */
-        public int coeff() {
-            return this.coeff;
-        }
-
-        /**
-         * Post-condizioni: restituisce un nuovo monomio corrispondente al monomio
-         * opposto di this
-         */
-        public Monomio minus() {
-            return new Monomio(coeff() * -1, this.degree);
-        }
-
-        /**
-         * Post-condizioni: restituisce true se this e match sono monomi dello stesso
-         * grado, false altrimenti
-         * <p>
-         * solleva NullPointerException se match è null
-         */
-        public boolean similar(Monomio match) {
-            Objects.requireNonNull(match);
-            return this.degree() == match.degree();
-        }
-
-        /**
-         * Post-condizioni: calcola la somma fra this e m se sono monomi simili
-         * <p>
-         * solleva IllegalArgumentException se i due monomi non sono simili
-         */
-        public Monomio addSimilar(Monomio m) {
-            if (!(similar(m)))
-                throw new IllegalArgumentException("m deve essere simile a this");
-            return new Monomio(this.coeff() + m.coeff(), this.degree);
-        }
-
-        @Override
-        public String toString() {
-            return this.coeff() + "x^" + this.degree();
+        StringBuilder returnString = new StringBuilder("Polinomio: {");
+        if (degrees.length == 0)
+            returnString.append("0x^0");
+        for (int i = 0; i < degrees.length; i++) {
+            if (i > 0)
+                returnString.append(" + ");
+            returnString.append(coeffs[i]).append("x^").append(degrees[i]);
         }
-
+        return returnString.append("} grado = ").append(degree()).toString();
     }
-
-    /**
-     * Post-condizioni: restituisce un nuovo Polinomio corrispondente alla somma di
-     * this con il polinomio in input
-     * <p>
-     * solleva NullPointerException se il Polinomio in input è null
-     * <p>
-     * TODO: DA RIVEDERE!
-     */
-    // public Polinomio addOttimizzato(Polinomio q){
-    // List<Monomio> polinomioAlto;
-    // List<Monomio> polinomioBasso;
-    // Polinomio alto;
-
-    // if(this.degree() > q.degree()){
-    // polinomioAlto = this.getElements();
-    // polinomioBasso = this.getElements();
-    // alto = this;
-    // }else{
-    // polinomioAlto = q.getElements();
-    // polinomioBasso = this.getElements();
-    // alto = q;
-    // }
-
-    // for(Monomio nuovo : polinomioBasso){
-    // if(alto.coeff(nuovo.degree()) == 0){
-    // polinomioAlto.add(nuovo);
-    // }else{
-    // polinomioAlto.remove(nuovo);
-    // polinomioAlto.add(new Monomio(alto.coeff(nuovo.degree()) +
-    // nuovo.coeff(),nuovo.degree()));
-    // }
-    // }
-
-    // return new Polinomio(polinomioAlto);
-    // }
-}
\ No newline at end of file
+}
@@ -1,5 +1,4 @@
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * <p>
@@ -14,24 +13,51 @@ import java.util.List;
  * x_k+1], mentre a seguito di una operazione di dequeue la coda sarà [x_2, ...,
  * x_k, x_k].
  * <p>
- * Funzione di astrazione: AF(els) = [els.get(0), els.get(1), ... ,
- * els.get(els.size-1)] se els.size > 0, [] se els.size = 0
+ * Gli elementi sono memorizzati in una lista concatenata di blocchi di
+ * CHUNK_SIZE int: enqueue e dequeue costano O(1) e non creano oggetti, tranne
+ * un nuovo blocco ogni CHUNK_SIZE inserimenti.
  * <p>
- * Invariante di rappresentaziones: la coda non contiene elementi nulli
+ * Funzione di astrazione: AF(head, headIndex, size) = i primi size elementi
+ * della sequenza head.values[headIndex], ..., head.values[CHUNK_SIZE - 1],
+ * head.next.values[0], ..., head.next.values[CHUNK_SIZE - 1], ... [] se size =
+ * 0
+ * <p>
+ * Invariante di rappresentazione: head != null, tail != null, tail è
+ * raggiungibile da head seguendo next e tail.next == null, 0 <= headIndex <
+ * CHUNK_SIZE, 0 <= tailIndex <= CHUNK_SIZE, size è il numero di posizioni fra
+ * (head, headIndex) compresa e (tail, tailIndex) esclusa
  */
 public class UnboundedQueue {
 
-    /** Struttura dati contentente gli elementi della coda */
-    private List<Integer> els;
+    /** Numero di elementi di ogni blocco */
+    private static final int CHUNK_SIZE = 512;
+
+    /** Blocco che contiene l'elemento in testa alla coda */
+    private Chunk head;
+
+    /** Posizione dell'elemento in testa alla coda in head */
+    private int headIndex;
+
+    /** Ultimo blocco della coda */
+    private Chunk tail;
+
+    /** Prima posizione libera in tail */
+    private int tailIndex;
+
+    /** Numero di elementi della coda */
+    private int size;
+
+    /** Blocco già svuotato, riusato dal prossimo enqueue che ne ha bisogno */
+    private Chunk spare;
 
     /**
      * Post-condizioni: Inizializza this affinchè rappresenti una nuova coda vuota
      * 
-     * Preserva l'invariante di rappresentazione poiche rappresenta sempre la
-     * UnboundedQueue: [] che è valida per la funzione di astrazione
+     * Preserva l'invariante di rappresentazione poiche head e tail sono lo stesso
+     * blocco non null e tutti gli indici e size valgono 0
      */
     public UnboundedQueue() {
-        els = new LinkedList<>();
+        head = tail = new Chunk();
         assert repOk();
     }
 
@@ -39,7 +65,7 @@ public class UnboundedQueue {
      * Post-condizioni: restituisce la cardinalità di this
      */
     public int size() {
-        return els.size();
+        return size;
     }
 
     /**
@@ -47,11 +73,20 @@ public class UnboundedQueue {
      * <p>
      * Post-condizioni: Aggiunge l'elemento x alla coda this
      * 
-     * Preservo l'invariante di rappresentazione poichè un int non può mai essere
-     * null
+     * Preservo l'invariante di rappresentazione poichè se tail è pieno viene
+     * agganciato un nuovo blocco che diventa tail, poi tailIndex e size vengono
+     * incrementati insieme
      */
     public void enqueue(int n) {
-        els.add(n);
+        if (tailIndex == CHUNK_SIZE) {
+            Chunk next = spare != null ? spare : new Chunk();
+            spare = null;
+            tail.next = next;
+            tail = next;
+            tailIndex = 0;
+        }
+        tail.values[tailIndex++] = n;
+        size++;
 
         assert repOk();
     }
@@ -63,41 +98,57 @@ public class UnboundedQueue {
      * presente. this = [x1, x2, ..., x_k], k < n, this = [x2, ..., x_k]
      * solleva EmptyException se la coda è vuota
      * 
-     * Preservo l'invariante di rappresentazione poichè se ho una UnboundedQueue con
-     * dimensione diversa da 0 e rimuovo un elemento avrò sempre una
-     * UnboundedQueue valida mentre una queue vuota solleva un'eccezzione:
+     * Preservo l'invariante di rappresentazione poichè headIndex avanza mentre
+     * size diminuisce; se head è stato letto completamente si passa al blocco
+     * successivo, e se la coda è vuota gli indici tornano all'inizio del blocco:
      * 
      * this = [x1,x2, .. , xk], this_post = [x2, ... , xk] se size è maggiore di 0
      * this = [], this_post = [] se size è uguale a 0
      */
     public int dequeue() {
         assert repOk();
-        if(size() == 0) throw new EmptyException("la coda è vuota");
-        return els.remove(0);
+        if (size() == 0)
+            throw new EmptyException("la coda è vuota");
+        int r = head.values[headIndex++];
+        size--;
+        if (size == 0) {
+            headIndex = tailIndex = 0;
+        } else if (headIndex == CHUNK_SIZE) {
+            Chunk consumed = head;
+            head = head.next;
+            headIndex = 0;
+            consumed.next = null;
+            spare = consumed;
+        }
+        return r;
     }
 
     /** Implementa l'invariante di rappresentazione */
     private boolean repOk() {
-        for (int i = 0; i < size(); i++)
-            if (els.get(i) == null)
+        if (head == null || tail == null || tail.next != null)
+            return false;
+        if (headIndex < 0 || headIndex >= CHUNK_SIZE || tailIndex < 0 || tailIndex > CHUNK_SIZE)
+            return false;
+        int count = -headIndex;
+        for (Chunk c = head; c != tail; c = c.next) {
+            if (c == null)
                 return false;
-
-        return true;
+            count += CHUNK_SIZE;
+        }
+        return count + tailIndex == size;
     }
 
     /** Implementa la funzione di astrazione */
     @Override
     public String toString() {
-        String repr = "IntQueue : [";
-        int i;
-
-        for (i = 0; i < size() - 1; i++)
-            repr += els.get(i) + ", ";
-
-        if (size() > 0)
-            repr += els.get(i);
-
-        return repr += "]";
+        StringBuilder repr = new StringBuilder("IntQueue : [");
+        int[] values = toArray();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0)
+                repr.append(", ");
+            repr.append(values[i]);
+        }
+        return repr.append("]").toString();
     }
 
     @Override
@@ -110,10 +161,30 @@ public class UnboundedQueue {
         if (queue.size() != size())
             return false;
 
-        for (int i = 0; i < size(); i++)
-            if (queue.els.get(i) != els.get(i))
-                return false;
+        return Arrays.equals(queue.toArray(), toArray());
+    }
+
+    /**
+     * Post-condizioni: restituisce un array con gli elementi di this dalla testa
+     * alla fine della coda
+     */
+    private int[] toArray() {
+        int[] values = new int[size];
+        Chunk chunk = head;
+        int index = headIndex;
+        for (int i = 0; i < size; i++) {
+            if (index == CHUNK_SIZE) {
+                chunk = chunk.next;
+                index = 0;
+            }
+            values[i] = chunk.values[index++];
+        }
+        return values;
+    }
 
-        return true;
+    /** Blocco di elementi della coda */
+    static final class Chunk {
+        final int[] values = new int[CHUNK_SIZE];
+        Chunk next;
     }
-}
\ No newline at end of file
+}
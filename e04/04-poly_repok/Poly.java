@@ -111,16 +111,27 @@ public class Poly {
      */
     public Poly mul(Poly q) {
         Objects.requireNonNull(q);
-        int[] smaller = q.degree() > degree() ? this.getElements() : q.getElements();
-        int[] bigger = q.degree() > degree() ? q.getElements() : this.getElements();
-        Poly prodotto = new Poly();
+        int[] smaller = q.degree() > degree() ? poly : q.poly;
+        int[] bigger = q.degree() > degree() ? q.poly : poly;
+        // Accumulo i prodotti parziali in un unico array: con l'overflow degli int
+        // si ottengono gli stessi coefficenti della somma dei singoli monomi
+        int[] prodotto = new int[smaller.length + bigger.length - 1];
 
         for (int i = 0; i < smaller.length; i++) {
-            for (int j = 0; j < bigger.length; j++) {
-                prodotto = prodotto.add(new Poly(smaller[i] * bigger[j], i + j));
-            }
+            int c = smaller[i];
+            if (c == 0)
+                continue;
+            for (int j = 0; j < bigger.length; j++)
+                prodotto[i + j] += c * bigger[j];
         }
-        return prodotto;
+
+        // Accorcio l'array fino ad avere nell'ultima posizione un coefficente diverso
+        // da 0 o fino a raggiungere lunghezza 1
+        int length = prodotto.length;
+        while (length > 1 && prodotto[length - 1] == 0)
+            length--;
+
+        return new Poly(length == prodotto.length ? prodotto : Arrays.copyOf(prodotto, length));
     }
 
     /**
@@ -1,4 +1,6 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 
@@ -140,15 +142,99 @@ public class Poly {
      * solleva NullPointerException se il Poly in input è null
      */
     public Poly mul(Poly q) {
-        Poly result = new Poly(0, 0);
-        List<Monomio> qElements = q.getElements();
-        for (Monomio actual : getElements()) {
-            for (Monomio moltiplicatore : qElements) {
-                result = result.add(
-                        new Poly(actual.coeff() * moltiplicatore.coeff(), actual.degree() + moltiplicatore.degree()));
+        Objects.requireNonNull(q);
+        int[][] a = sortedTerms();
+        int[][] b = q.sortedTerms();
+        int[][] product = multiply(a[0], a[1], b[0], b[1]);
+        List<Monomio> result = new ArrayList<>();
+        for (int i = 0; i < product[0].length; i++)
+            result.add(new Monomio(product[1][i], product[0][i]));
+        if (result.isEmpty())
+            return new Poly();
+        return new Poly(result);
+    }
+
+    /**
+     * Post-condizioni: restituisce gradi e coefficenti dei monomi di this con
+     * coefficente diverso da 0, in ordine crescente di grado
+     */
+    private int[][] sortedTerms() {
+        List<Monomio> terms = new ArrayList<>();
+        for (Monomio actual : elements)
+            if (actual.coeff() != 0)
+                terms.add(actual);
+        terms.sort(Comparator.comparingInt(Monomio::degree));
+        int[] degrees = new int[terms.size()];
+        int[] coeffs = new int[terms.size()];
+        for (int i = 0; i < degrees.length; i++) {
+            degrees[i] = terms.get(i).degree();
+            coeffs[i] = terms.get(i).coeff();
+        }
+        return new int[][] { degrees, coeffs };
+    }
+
+    /**
+     * Pre-condizioni: ad e bd sono ordinati in ordine strettamente crescente e
+     * hanno la stessa lunghezza di ac e bc
+     * <p>
+     * Post-condizioni: restituisce gradi e coefficenti, in ordine crescente di
+     * grado e senza coefficenti nulli, del prodotto fra il polinomio con termini
+     * (ad, ac) e quello con termini (bd, bc)
+     * <p>
+     * Solleva NegativeExponentException se il grado massimo del prodotto non è
+     * rappresentabile come int
+     * <p>
+     * Correttezza: i prodotti a_i b_j escono da una coda con priorità in ordine di
+     * grado (algoritmo di Johnson). La coda contiene al più una coppia (i, j) per
+     * ogni termine del polinomio più corto: la riga i + 1 entra quando esce (i,
+     * 0), che ha grado minore di (i + 1, 0), e dopo (i, j) entra (i, j + 1), che
+     * ha grado maggiore; quindi i gradi escono in ordine e quelli uguali sono
+     * consecutivi
+     */
+    private static int[][] multiply(int[] ad, int[] ac, int[] bd, int[] bc) {
+        if (ad.length > bd.length)
+            return multiply(bd, bc, ad, ac);
+        int n = ad.length, m = bd.length;
+        if (n > 0 && (long) ad[n - 1] + bd[m - 1] > Integer.MAX_VALUE)
+            throw new NegativeExponentException();
+        int[] rd = new int[n + m];
+        int[] rc = new int[n + m];
+        int k = 0;
+        if (n > 0) {
+            ProductHeap heap = new ProductHeap(ad, bd);
+            heap.push(0);
+            long current = heap.key(0);
+            int sum = 0;
+            while (!heap.isEmpty()) {
+                int i = heap.top(), j = heap.column(i);
+                long degree = heap.key(i);
+                if (degree != current) {
+                    if (sum != 0) {
+                        if (k == rd.length) {
+                            rd = Arrays.copyOf(rd, 2 * k);
+                            rc = Arrays.copyOf(rc, 2 * k);
+                        }
+                        rd[k] = (int) current;
+                        rc[k++] = sum;
+                    }
+                    current = degree;
+                    sum = 0;
+                }
+                sum += ac[i] * bc[j];
+                heap.advanceTop(m);
+                if (j == 0 && i + 1 < n)
+                    heap.push(i + 1);
+            }
+            if (sum != 0) {
+                if (k == rd.length) {
+                    rd = Arrays.copyOf(rd, k + 1);
+                    rc = Arrays.copyOf(rc, k + 1);
+                }
+                rd[k] = (int) current;
+                rc[k++] = sum;
             }
         }
-        return result;
+        return new int[][] { Arrays.copyOf(rd, k), Arrays.copyOf(rc, k) };
     }
 
     /**
@@ -212,6 +298,83 @@ public class Poly {
         return true;
     }
 
+    /**
+     * OVERVIEW: coda con priorità (heap binario) delle righe del prodotto di
+     * Johnson, mutabile. La riga i rappresenta la coppia (i, column[i]) e ha come
+     * chiave il grado ad[i] + bd[column[i]]
+     */
+    private static final class ProductHeap {
+        private final int[] ad, bd;
+        private final int[] column;
+        private final int[] heap;
+        private int size;
+
+        ProductHeap(int[] ad, int[] bd) {
+            this.ad = ad;
+            this.bd = bd;
+            column = new int[ad.length];
+            heap = new int[ad.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /** Post-condizioni: restituisce la riga con la chiave minima */
+        int top() {
+            return heap[0];
+        }
+
+        int column(int row) {
+            return column[row];
+        }
+
+        long key(int row) {
+            return (long) ad[row] + bd[column[row]];
+        }
+
+        /** Effetti collaterali: inserisce la riga row, alla colonna 0 */
+        void push(int row) {
+            int pos = size++;
+            long key = key(row);
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (key(heap[parent]) <= key)
+                    break;
+                heap[pos] = heap[parent];
+                pos = parent;
+            }
+            heap[pos] = row;
+        }
+
+        /**
+         * Effetti collaterali: sposta la riga in cima alla colonna successiva, o la
+         * toglie se era all'ultima delle m colonne
+         */
+        void advanceTop(int m) {
+            int row = heap[0];
+            if (++column[row] == m) {
+                row = heap[--size];
+                if (size == 0)
+                    return;
+            }
+            long key = key(row);
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size)
+                    break;
+                if (child + 1 < size && key(heap[child + 1]) < key(heap[child]))
+                    child++;
+                if (key <= key(heap[child]))
+                    break;
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = row;
+        }
+    }
+
     /**
      * OVERVIEW: Le istanze di questa classe rappresentano dei monomi. Gli oggetti
      * di questo tipo sono immutabili. Un Monomio è valido con qualsiasi
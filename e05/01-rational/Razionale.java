@@ -1,4 +1,6 @@
+import java.lang.ref.WeakReference;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * OVERVIEW:Le istanze di questa classe rappresentano numeri razionali. Gli
@@ -11,9 +13,25 @@ import java.util.Objects;
  * 
  * Invariante di astrazione: den > 0, il razionale è sempre rappresentato con
  * segno al numeratore e ridotto ai minimi termini
+ * 
+ * I razionali piccoli (|num| <= CACHE_NUM e 0 < den <= CACHE_DEN) ottenuti con
+ * valueOf, o come risultato delle operazioni, sono condivisi: una tabella di
+ * dimensione fissa tiene un riferimento debole a ciascuno, quindi quelli non
+ * più usati possono essere raccolti dal garbage collector e ricreati alla
+ * richiesta successiva
  */
 public class Razionale {
 
+    /** Valore assoluto massimo del numeratore dei razionali condivisi */
+    private static final int CACHE_NUM = 128;
+
+    /** Denominatore massimo dei razionali condivisi */
+    private static final int CACHE_DEN = 16;
+
+    /** I razionali condivisi, nella posizione (num + CACHE_NUM) * CACHE_DEN + den - 1 */
+    private static final AtomicReferenceArray<WeakReference<Razionale>> CACHE = new AtomicReferenceArray<>(
+            (2 * CACHE_NUM + 1) * CACHE_DEN);
+
     /** numeratore del razionale */
     private int num;
     /** denominatore del razionale */
@@ -42,6 +60,36 @@ public class Razionale {
         assert repOk();
     }
 
+    /**
+     * Post-condizioni: restituisce un razionale uguale a new Razionale(n, d),
+     * solleva ZeroDivisorException se d è 0. Se il razionale ridotto è piccolo
+     * restituisce l'istanza condivisa, creandola se non esiste o se è stata
+     * raccolta dal garbage collector
+     * 
+     * Correttezza: num e den sono calcolati come nel costruttore, quindi
+     * l'istanza condivisa in quella posizione ha gli stessi num e den di new
+     * Razionale(n, d)
+     */
+    public static Razionale valueOf(int n, int d) {
+        if (d == 0)
+            throw new ZeroDivisorException();
+        int num = n * d > 0 ? Math.abs(n) : -Math.abs(n);
+        int den = Math.abs(d);
+        int mcd = mcd(num, den);
+        num /= mcd;
+        den /= mcd;
+        if (num < -CACHE_NUM || num > CACHE_NUM || den < 1 || den > CACHE_DEN)
+            return new Razionale(n, d);
+        int slot = (num + CACHE_NUM) * CACHE_DEN + den - 1;
+        WeakReference<Razionale> ref = CACHE.get(slot);
+        Razionale r = ref == null ? null : ref.get();
+        if (r == null) {
+            r = new Razionale(n, d);
+            CACHE.set(slot, new WeakReference<>(r));
+        }
+        return r;
+    }
+
     /**
      * Post-condizioni: inizializza e restituisce un nuovo razionale corrispondente
      * alle somma di this e s, solleva NullPointerException se s è null
@@ -56,7 +104,7 @@ public class Razionale {
         assert repOk();
 
         Objects.requireNonNull(s);
-        return new Razionale(s.den * num + s.num * den, den * s.den);
+        return valueOf(s.den * num + s.num * den, den * s.den);
 
     }
 
@@ -86,7 +134,7 @@ public class Razionale {
     public Razionale mul(Razionale s) {
         assert s.repOk();
         Objects.requireNonNull(s);
-        return new Razionale(num * s.num,den * s.den);
+        return valueOf(num * s.num, den * s.den);
     }
 
     /**
@@ -120,7 +168,7 @@ public class Razionale {
     public Razionale reciproco() {
         if (num == 0)
             throw new ZeroDivisorException();
-        return new Razionale(den, num);
+        return valueOf(den, num);
     }
 
     /**
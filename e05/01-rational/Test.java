@@ -8,7 +8,7 @@ public class Test {
         int countEquals = 0;
         try (Scanner s = new Scanner(System.in)) {
             while (s.hasNextInt()) {
-                Razionale read = new Razionale(s.nextInt(), s.nextInt());
+                Razionale read = Razionale.valueOf(s.nextInt(), s.nextInt());
                 if (list.contains(read))
                     countEquals++;
 
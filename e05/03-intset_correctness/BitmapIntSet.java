@@ -0,0 +1,906 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * OVERVIEW: Le istanze di questa classe rappresentano insiemi (non limitati) di
+ * interi, con lo stesso contratto di IntSet, pensati per insiemi che contengono
+ * intervalli densi di interi. Gli oggetti di questo tipo sono mutabili. Un
+ * tipico BitmapIntSet è : {x1,x2,x3,...,xn}
+ *
+ * Gli interi vengono divisi in blocchi da 2^16 valori in base ai 16 bit più
+ * significativi (la chiave del blocco); ogni blocco non vuoto è memorizzato in
+ * un contenitore che sceglie la rappresentazione più compatta fra un array
+ * ordinato di char (blocchi sparsi), una bitmap di 2^16 bit (blocchi densi) e
+ * una sequenza di intervalli (blocchi composti da poche sequenze contigue).
+ *
+ * Funzione di astrazione: AF(keys, containers, chunks) = {keys[i] * 2^16 + v |
+ * 0 <= i < chunks, v appartiene a containers[i]}
+ *
+ * Invariante di rappresentazione: keys != null, containers != null,
+ * keys[0..chunks) è ordinato in modo strettamente crescente, per ogni 0 <= i <
+ * chunks containers[i] != null e containers[i] non è vuoto, size è la somma
+ * delle cardinalità dei contenitori
+ *
+ * Invariante di astrazione: l'insieme più piccolo è l'insieme vuoto che ha
+ * dimensione zero, in un BitmapIntSet non sono presenti elementi duplicati
+ */
+public class BitmapIntSet {
+
+    /** Chiavi (16 bit alti) dei blocchi non vuoti, in ordine crescente */
+    private char[] keys;
+
+    /** Contenitori dei 16 bit bassi, containers[i] corrisponde a keys[i] */
+    private Container[] containers;
+
+    /** Numero di blocchi non vuoti */
+    private int chunks;
+
+    /** Cardinalità dell'insieme */
+    private int size;
+
+    /**
+     * Post-condizioni: Inizializza un nuovo insieme di interi vuoto
+     *
+     * Preservazione RI: keys e containers sono array non null e chunks è 0,
+     * quindi non esistono blocchi da controllare
+     *
+     * Correttezza: AF(keys, containers, 0) = {}
+     */
+    public BitmapIntSet() {
+        keys = new char[4];
+        containers = new Container[4];
+        chunks = 0;
+        size = 0;
+    }
+
+    /**
+     * Effetti-collaterali: potrebbe modificare this
+     *
+     * Post-condizioni: Aggiunge x all'insieme
+     *
+     * Preservazione RI: se il blocco di x non esiste viene creato nella posizione
+     * che mantiene keys ordinato, il contenitore restituito da add contiene
+     * almeno x e size viene aggiornato con la variazione di cardinalità
+     *
+     * Correttezza: this_post = this + {x}
+     */
+    public void insert(int x) {
+        char key = (char) (x >>> 16);
+        int i = Arrays.binarySearch(keys, 0, chunks, key);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, key, new ArrayContainer());
+        }
+        Container c = containers[i];
+        int before = c.cardinality();
+        containers[i] = c.add((char) x);
+        size += containers[i].cardinality() - before;
+    }
+
+    /**
+     * Effetti-collaterali: potrebbe modificare this
+     *
+     * Post-condizioni: Rimuove x dall'insieme
+     *
+     * Preservazione RI: se il contenitore diventa vuoto il blocco viene eliminato
+     * compattando keys e containers, size viene aggiornato con la variazione di
+     * cardinalità
+     *
+     * Correttezza: this_post = this - {x}
+     */
+    public void remove(int x) {
+        int i = Arrays.binarySearch(keys, 0, chunks, (char) (x >>> 16));
+        if (i < 0)
+            return;
+        Container c = containers[i];
+        int before = c.cardinality();
+        containers[i] = c.remove((char) x);
+        size += containers[i].cardinality() - before;
+        if (containers[i].cardinality() == 0)
+            removeChunk(i);
+    }
+
+    /**
+     * Post-condizioni: Restituisce un intero scelto arbitrariamente tra gli
+     * elementi di una istanza, e sollevare un'eccezione di tipo EmptyException se
+     * l'insieme è vuoto
+     *
+     * Correttezza: Se non sono presenti elementi solleva un eccezione, altrimenti
+     * restituisce sempre il più piccolo elemento del primo blocco
+     */
+    public int choose() {
+        if (size == 0)
+            throw new EmptyException("Impossibile estrarre elemento da set vuoto");
+        return keys[0] << 16 | containers[0].first();
+    }
+
+    /**
+     * Post-condizioni: Restituisce la cardinalità dell'insieme this
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Post-condizioni: restituisce true se la x è in this, false altrimenti
+     *
+     * Correttezza: x appartiene a this se esiste il blocco con chiave pari ai 16
+     * bit alti di x e il suo contenitore contiene i 16 bit bassi di x
+     */
+    public boolean contains(int x) {
+        int i = Arrays.binarySearch(keys, 0, chunks, (char) (x >>> 16));
+        return i >= 0 && containers[i].contains((char) x);
+    }
+
+    /**
+     * Effetti-collaterali: potrebbe modificare la rappresentazione di this, ma non
+     * AF(this)
+     *
+     * Post-condizioni: converte ogni contenitore nella rappresentazione che occupa
+     * meno memoria, comprese le sequenze di intervalli. Conviene invocarlo dopo
+     * aver caricato intervalli densi di interi
+     */
+    public void runOptimize() {
+        for (int i = 0; i < chunks; i++)
+            containers[i] = containers[i].optimize();
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo insieme corrispondente all'unione di
+     * this e other, solleva NullPointerException se other è null
+     *
+     * Correttezza: i blocchi presenti in uno solo dei due insiemi vengono copiati,
+     * quelli presenti in entrambi vengono uniti contenitore per contenitore
+     */
+    public BitmapIntSet union(BitmapIntSet other) {
+        Objects.requireNonNull(other);
+        BitmapIntSet result = new BitmapIntSet();
+        int i = 0, j = 0;
+        while (i < chunks || j < other.chunks) {
+            if (j == other.chunks || (i < chunks && keys[i] < other.keys[j])) {
+                result.appendChunk(keys[i], containers[i].copy());
+                i++;
+            } else if (i == chunks || other.keys[j] < keys[i]) {
+                result.appendChunk(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.appendChunk(keys[i], or(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo insieme corrispondente
+     * all'intersezione di this e other, solleva NullPointerException se other è
+     * null
+     *
+     * Correttezza: solo i blocchi presenti in entrambi gli insiemi possono
+     * contenere elementi comuni
+     */
+    public BitmapIntSet intersect(BitmapIntSet other) {
+        Objects.requireNonNull(other);
+        BitmapIntSet result = new BitmapIntSet();
+        int i = 0, j = 0;
+        while (i < chunks && j < other.chunks) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (other.keys[j] < keys[i]) {
+                j++;
+            } else {
+                result.appendChunk(keys[i], and(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo insieme contenente gli elementi di
+     * this che non appartengono ad other, solleva NullPointerException se other è
+     * null
+     */
+    public BitmapIntSet difference(BitmapIntSet other) {
+        Objects.requireNonNull(other);
+        BitmapIntSet result = new BitmapIntSet();
+        int j = 0;
+        for (int i = 0; i < chunks; i++) {
+            while (j < other.chunks && other.keys[j] < keys[i])
+                j++;
+            if (j < other.chunks && other.keys[j] == keys[i])
+                result.appendChunk(keys[i], andNot(containers[i], other.containers[j]));
+            else
+                result.appendChunk(keys[i], containers[i].copy());
+        }
+        return result;
+    }
+
+    /**
+     * Post-condizioni: restituisce true se ogni elemento di this appartiene ad
+     * other, false altrimenti. Solleva NullPointerException se other è null
+     */
+    public boolean isSubsetOf(BitmapIntSet other) {
+        Objects.requireNonNull(other);
+        if (size > other.size)
+            return false;
+        int j = 0;
+        for (int i = 0; i < chunks; i++) {
+            while (j < other.chunks && other.keys[j] < keys[i])
+                j++;
+            if (j == other.chunks || other.keys[j] != keys[i] || !containers[i].isSubsetOf(other.containers[j]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Post-condizioni: restituisce una rappresentazione testuale di this, con gli
+     * elementi nell'ordine dei blocchi
+     */
+    @Override
+    public String toString() {
+        StringBuilder set = new StringBuilder("IntSet: {");
+        boolean first = true;
+        for (int i = 0; i < chunks; i++) {
+            int high = keys[i] << 16;
+            for (int low : containers[i].toArray()) {
+                if (!first)
+                    set.append(", ");
+                set.append(high | low);
+                first = false;
+            }
+        }
+        return set.append("}").toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof BitmapIntSet))
+            return false;
+        BitmapIntSet o = (BitmapIntSet) obj;
+        if (o.size != size || o.chunks != chunks)
+            return false;
+        for (int i = 0; i < chunks; i++)
+            if (o.keys[i] != keys[i] || !Arrays.equals(o.containers[i].toArray(), containers[i].toArray()))
+                return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Integer.hashCode(size);
+        for (int i = 0; i < chunks; i++) {
+            int high = keys[i] << 16;
+            for (int low : containers[i].toArray())
+                hash = 31 * hash + Integer.hashCode(high | low);
+        }
+        return hash;
+    }
+
+    /**
+     * Effetti-collaterali: modifica keys e containers
+     *
+     * Post-condizioni: inserisce il blocco (key, c) in posizione i
+     */
+    private void insertChunk(int i, char key, Container c) {
+        if (chunks == keys.length) {
+            keys = Arrays.copyOf(keys, chunks * 2);
+            containers = Arrays.copyOf(containers, chunks * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, chunks - i);
+        System.arraycopy(containers, i, containers, i + 1, chunks - i);
+        keys[i] = key;
+        containers[i] = c;
+        chunks++;
+    }
+
+    /**
+     * Effetti-collaterali: modifica keys e containers
+     *
+     * Post-condizioni: elimina il blocco in posizione i
+     */
+    private void removeChunk(int i) {
+        System.arraycopy(keys, i + 1, keys, i, chunks - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, chunks - i - 1);
+        chunks--;
+        containers[chunks] = null;
+    }
+
+    /**
+     * Effetti-collaterali: modifica keys e containers
+     *
+     * Post-condizioni: aggiunge il blocco (key, c) in fondo a this se c non è
+     * null. Pre-condizioni: key è maggiore di tutte le chiavi di this
+     */
+    private void appendChunk(char key, Container c) {
+        if (c == null)
+            return;
+        insertChunk(chunks, key, c);
+        size += c.cardinality();
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo contenitore con gli elementi di a o di
+     * b
+     */
+    static Container or(Container a, Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer) {
+            ArrayContainer x = (ArrayContainer) a, y = (ArrayContainer) b;
+            char[] merged = new char[x.card + y.card];
+            int i = 0, j = 0, n = 0;
+            while (i < x.card && j < y.card) {
+                char u = x.values[i], v = y.values[j];
+                if (u <= v)
+                    i++;
+                if (v <= u)
+                    j++;
+                merged[n++] = u <= v ? u : v;
+            }
+            while (i < x.card)
+                merged[n++] = x.values[i++];
+            while (j < y.card)
+                merged[n++] = y.values[j++];
+            return fromSorted(merged, n);
+        }
+        long[] words = a.words().clone();
+        long[] other = b.words();
+        for (int w = 0; w < words.length; w++)
+            words[w] |= other[w];
+        return fromWords(words);
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo contenitore con gli elementi comuni ad
+     * a e b, null se non ce ne sono
+     */
+    static Container and(Container a, Container b) {
+        if (b instanceof ArrayContainer && !(a instanceof ArrayContainer)) {
+            Container t = a;
+            a = b;
+            b = t;
+        }
+        if (a instanceof ArrayContainer) {
+            // Filtro l'array: con b array faccio un merge, altrimenti un test diretto
+            ArrayContainer x = (ArrayContainer) a;
+            char[] common = new char[x.card];
+            int n = 0;
+            if (b instanceof ArrayContainer) {
+                ArrayContainer y = (ArrayContainer) b;
+                int i = 0, j = 0;
+                while (i < x.card && j < y.card) {
+                    char u = x.values[i], v = y.values[j];
+                    if (u == v)
+                        common[n++] = u;
+                    if (u <= v)
+                        i++;
+                    if (v <= u)
+                        j++;
+                }
+            } else {
+                for (int i = 0; i < x.card; i++)
+                    if (b.contains(x.values[i]))
+                        common[n++] = x.values[i];
+            }
+            return fromSorted(common, n);
+        }
+        long[] words = a.words().clone();
+        long[] other = b.words();
+        for (int w = 0; w < words.length; w++)
+            words[w] &= other[w];
+        return fromWords(words);
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo contenitore con gli elementi di a che
+     * non appartengono a b, null se non ce ne sono
+     */
+    static Container andNot(Container a, Container b) {
+        if (a instanceof ArrayContainer) {
+            ArrayContainer x = (ArrayContainer) a;
+            char[] kept = new char[x.card];
+            int n = 0;
+            for (int i = 0; i < x.card; i++)
+                if (!b.contains(x.values[i]))
+                    kept[n++] = x.values[i];
+            return fromSorted(kept, n);
+        }
+        long[] words = a.words().clone();
+        long[] other = b.words();
+        for (int w = 0; w < words.length; w++)
+            words[w] &= ~other[w];
+        return fromWords(words);
+    }
+
+    /**
+     * Post-condizioni: restituisce il contenitore più adatto per i primi n valori
+     * ordinati di sorted, null se n è 0
+     */
+    private static Container fromSorted(char[] sorted, int n) {
+        if (n == 0)
+            return null;
+        if (n <= Container.ARRAY_MAX) {
+            ArrayContainer c = new ArrayContainer();
+            c.values = sorted;
+            c.card = n;
+            return c;
+        }
+        BitmapContainer c = new BitmapContainer();
+        for (int i = 0; i < n; i++)
+            c.bits[sorted[i] >>> 6] |= 1L << sorted[i];
+        c.card = n;
+        return c;
+    }
+
+    /**
+     * Post-condizioni: restituisce il contenitore più adatto per la bitmap words,
+     * null se words non contiene bit a 1
+     */
+    private static Container fromWords(long[] words) {
+        int card = 0;
+        for (long word : words)
+            card += Long.bitCount(word);
+        if (card == 0)
+            return null;
+        BitmapContainer c = new BitmapContainer(words);
+        c.card = card;
+        return card <= Container.ARRAY_MAX ? ArrayContainer.of(c.toArray()) : c;
+    }
+
+    /**
+     * OVERVIEW: contenitore mutabile dei 16 bit bassi degli elementi di un blocco.
+     * Le operazioni che modificano il contenitore restituiscono il contenitore da
+     * usare al suo posto, che può avere una rappresentazione diversa
+     */
+    abstract static class Container {
+
+        /** Numero massimo di elementi di un ArrayContainer */
+        static final int ARRAY_MAX = 4096;
+
+        /** Post-condizioni: restituisce true se low appartiene a this */
+        abstract boolean contains(char low);
+
+        /** Post-condizioni: restituisce il contenitore che rappresenta this + {low} */
+        abstract Container add(char low);
+
+        /** Post-condizioni: restituisce il contenitore che rappresenta this - {low} */
+        abstract Container remove(char low);
+
+        /** Post-condizioni: restituisce il numero di elementi di this */
+        abstract int cardinality();
+
+        /** Post-condizioni: restituisce il più piccolo elemento di this */
+        abstract int first();
+
+        /** Post-condizioni: restituisce gli elementi di this in ordine crescente */
+        abstract int[] toArray();
+
+        /** Post-condizioni: restituisce il numero di intervalli contigui di this */
+        abstract int runs();
+
+        /** Post-condizioni: restituisce una copia indipendente di this */
+        abstract Container copy();
+
+        /**
+         * Post-condizioni: restituisce la bitmap di 2^16 bit degli elementi di this,
+         * che non deve essere modificata dal chiamante
+         */
+        long[] words() {
+            long[] words = new long[1024];
+            for (int v : toArray())
+                words[v >>> 6] |= 1L << v;
+            return words;
+        }
+
+        /** Post-condizioni: restituisce true se ogni elemento di this appartiene ad o */
+        boolean isSubsetOf(Container o) {
+            if (cardinality() > o.cardinality())
+                return false;
+            long[] mine = words();
+            long[] other = o.words();
+            for (int w = 0; w < mine.length; w++)
+                if ((mine[w] & ~other[w]) != 0)
+                    return false;
+            return true;
+        }
+
+        /**
+         * Post-condizioni: restituisce un contenitore equivalente a this nella
+         * rappresentazione che occupa meno memoria
+         */
+        Container optimize() {
+            int card = cardinality();
+            int runs = runs();
+            int arrayBytes = 2 * card;
+            int bitmapBytes = 8192;
+            int runBytes = 4 * runs;
+            if (runBytes < Math.min(arrayBytes, bitmapBytes))
+                return this instanceof RunContainer ? this : RunContainer.of(toArray(), runs);
+            if (card <= ARRAY_MAX)
+                return this instanceof ArrayContainer ? this : ArrayContainer.of(toArray());
+            return this instanceof BitmapContainer ? this : BitmapContainer.of(toArray());
+        }
+    }
+
+    /**
+     * OVERVIEW: contenitore sparso, gli elementi sono memorizzati in un array
+     * ordinato di char.
+     *
+     * Invariante di rappresentazione: values[0..card) è strettamente crescente e
+     * card <= ARRAY_MAX
+     */
+    static final class ArrayContainer extends Container {
+        private char[] values = new char[4];
+        private int card;
+
+        static ArrayContainer of(int[] sorted) {
+            ArrayContainer c = new ArrayContainer();
+            c.values = new char[Math.max(4, sorted.length)];
+            for (int v : sorted)
+                c.values[c.card++] = (char) v;
+            return c;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, card, low) >= 0;
+        }
+
+        @Override
+        Container add(char low) {
+            int i = Arrays.binarySearch(values, 0, card, low);
+            if (i >= 0)
+                return this;
+            if (card == ARRAY_MAX)
+                return BitmapContainer.of(toArray()).add(low);
+            i = -i - 1;
+            if (card == values.length)
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, card * 2));
+            System.arraycopy(values, i, values, i + 1, card - i);
+            values[i] = low;
+            card++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            int i = Arrays.binarySearch(values, 0, card, low);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, card - i - 1);
+                card--;
+            }
+            return this;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        int first() {
+            return values[0];
+        }
+
+        @Override
+        int[] toArray() {
+            int[] r = new int[card];
+            for (int i = 0; i < card; i++)
+                r[i] = values[i];
+            return r;
+        }
+
+        @Override
+        int runs() {
+            int runs = 0;
+            for (int i = 0; i < card; i++)
+                if (i == 0 || values[i] != values[i - 1] + 1)
+                    runs++;
+            return runs;
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer c = new ArrayContainer();
+            c.values = Arrays.copyOf(values, card);
+            c.card = card;
+            return c;
+        }
+
+        @Override
+        boolean isSubsetOf(Container o) {
+            if (card > o.cardinality())
+                return false;
+            for (int i = 0; i < card; i++)
+                if (!o.contains(values[i]))
+                    return false;
+            return true;
+        }
+    }
+
+    /**
+     * OVERVIEW: contenitore denso, l'elemento v appartiene al contenitore se il
+     * bit v della bitmap vale 1.
+     *
+     * Invariante di rappresentazione: bits.length == 1024, card è il numero di
+     * bit a 1 di bits
+     */
+    static final class BitmapContainer extends Container {
+        private final long[] bits;
+        private int card;
+
+        BitmapContainer() {
+            bits = new long[1024];
+        }
+
+        private BitmapContainer(long[] bits) {
+            this.bits = bits;
+        }
+
+        static BitmapContainer of(int[] sorted) {
+            BitmapContainer c = new BitmapContainer();
+            for (int v : sorted)
+                c.bits[v >>> 6] |= 1L << v;
+            c.card = sorted.length;
+            return c;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (bits[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container add(char low) {
+            long word = bits[low >>> 6];
+            long updated = word | (1L << low);
+            if (updated != word) {
+                bits[low >>> 6] = updated;
+                card++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            long word = bits[low >>> 6];
+            long updated = word & ~(1L << low);
+            if (updated != word) {
+                bits[low >>> 6] = updated;
+                card--;
+                // Sotto la soglia l'array ordinato occupa meno memoria della bitmap
+                if (card <= ARRAY_MAX)
+                    return ArrayContainer.of(toArray());
+            }
+            return this;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        int first() {
+            int w = 0;
+            while (bits[w] == 0)
+                w++;
+            return w << 6 | Long.numberOfTrailingZeros(bits[w]);
+        }
+
+        @Override
+        int[] toArray() {
+            int[] r = new int[card];
+            int n = 0;
+            for (int w = 0; w < bits.length; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    r[n++] = w << 6 | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return r;
+        }
+
+        @Override
+        int runs() {
+            int runs = 0;
+            for (int w = 0; w < bits.length; w++) {
+                long word = bits[w];
+                // Un intervallo inizia dove un bit a 1 segue un bit a 0
+                long carry = w == 0 ? 0 : bits[w - 1] >>> 63;
+                runs += Long.bitCount(word & ~(word << 1 | carry));
+            }
+            return runs;
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer c = new BitmapContainer(bits.clone());
+            c.card = card;
+            return c;
+        }
+
+        @Override
+        long[] words() {
+            return bits;
+        }
+    }
+
+    /**
+     * OVERVIEW: contenitore a intervalli, l'i-esimo intervallo contiene gli
+     * interi da starts[i] a starts[i] + lengths[i] compresi.
+     *
+     * Invariante di rappresentazione: gli intervalli sono ordinati, disgiunti e
+     * non adiacenti, card è la somma delle loro lunghezze
+     */
+    static final class RunContainer extends Container {
+        private char[] starts = new char[4];
+        private char[] lengths = new char[4];
+        private int count;
+        private int card;
+
+        static RunContainer of(int[] sorted, int runs) {
+            RunContainer c = new RunContainer();
+            c.starts = new char[Math.max(4, runs)];
+            c.lengths = new char[Math.max(4, runs)];
+            for (int i = 0; i < sorted.length; i++) {
+                if (i > 0 && sorted[i] == sorted[i - 1] + 1) {
+                    c.lengths[c.count - 1]++;
+                } else {
+                    c.starts[c.count] = (char) sorted[i];
+                    c.lengths[c.count] = 0;
+                    c.count++;
+                }
+            }
+            c.card = sorted.length;
+            return c;
+        }
+
+        /**
+         * Post-condizioni: restituisce l'indice dell'ultimo intervallo che inizia in
+         * una posizione minore o uguale a low, -1 se non esiste
+         */
+        private int floorRun(char low) {
+            int i = Arrays.binarySearch(starts, 0, count, low);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        private int end(int i) {
+            return starts[i] + lengths[i];
+        }
+
+        @Override
+        boolean contains(char low) {
+            int i = floorRun(low);
+            return i >= 0 && low <= end(i);
+        }
+
+        @Override
+        Container add(char low) {
+            int i = floorRun(low);
+            if (i >= 0 && low <= end(i))
+                return this;
+            boolean extendsPrevious = i >= 0 && end(i) + 1 == low;
+            boolean extendsNext = i + 1 < count && starts[i + 1] == low + 1;
+            if (extendsPrevious && extendsNext) {
+                lengths[i] = (char) (end(i + 1) - starts[i]);
+                deleteRun(i + 1);
+            } else if (extendsPrevious) {
+                lengths[i]++;
+            } else if (extendsNext) {
+                starts[i + 1]--;
+                lengths[i + 1]++;
+            } else {
+                insertRun(i + 1, low, 0);
+            }
+            card++;
+            return rebalance();
+        }
+
+        @Override
+        Container remove(char low) {
+            int i = floorRun(low);
+            if (i < 0 || low > end(i))
+                return this;
+            int start = starts[i];
+            int end = end(i);
+            if (start == end) {
+                deleteRun(i);
+            } else if (low == start) {
+                starts[i]++;
+                lengths[i]--;
+            } else if (low == end) {
+                lengths[i]--;
+            } else {
+                lengths[i] = (char) (low - start - 1);
+                insertRun(i + 1, low + 1, end - low - 1);
+            }
+            card--;
+            return rebalance();
+        }
+
+        /**
+         * Post-condizioni: restituisce this se la rappresentazione a intervalli è
+         * ancora conveniente, altrimenti il contenitore equivalente più compatto
+         */
+        private Container rebalance() {
+            if (card > 0 && 4 * count > Math.min(2 * card, 8192))
+                return optimize();
+            return this;
+        }
+
+        private void insertRun(int i, int start, int length) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            System.arraycopy(starts, i, starts, i + 1, count - i);
+            System.arraycopy(lengths, i, lengths, i + 1, count - i);
+            starts[i] = (char) start;
+            lengths[i] = (char) length;
+            count++;
+        }
+
+        private void deleteRun(int i) {
+            System.arraycopy(starts, i + 1, starts, i, count - i - 1);
+            System.arraycopy(lengths, i + 1, lengths, i, count - i - 1);
+            count--;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        int first() {
+            return starts[0];
+        }
+
+        @Override
+        int[] toArray() {
+            int[] r = new int[card];
+            int n = 0;
+            for (int i = 0; i < count; i++)
+                for (int v = starts[i]; v <= end(i); v++)
+                    r[n++] = v;
+            return r;
+        }
+
+        @Override
+        int runs() {
+            return count;
+        }
+
+        @Override
+        Container copy() {
+            RunContainer c = new RunContainer();
+            c.starts = Arrays.copyOf(starts, Math.max(4, count));
+            c.lengths = Arrays.copyOf(lengths, Math.max(4, count));
+            c.count = count;
+            c.card = card;
+            return c;
+        }
+
+        @Override
+        long[] words() {
+            long[] words = new long[1024];
+            for (int i = 0; i < count; i++) {
+                int from = starts[i], to = end(i) + 1;
+                // Riempio l'intervallo [from, to) una parola alla volta
+                while (from < to) {
+                    int w = from >>> 6;
+                    int stop = Math.min(to, (w + 1) << 6);
+                    long mask = stop - from == 64 ? -1L : ((1L << (stop - from)) - 1) << from;
+                    words[w] |= mask;
+                    from = stop;
+                }
+            }
+            return words;
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+/**
+ * OVERVIEW: cursore sugli elementi di una collezione di interi. A differenza di
+ * Iterator<Integer> restituisce gli elementi come int, senza creare oggetti
+ * Integer
+ */
+public interface IntIterator {
+
+    /**
+     * Post-condizioni: restituisce true se ci sono ancora elementi da visitare
+     */
+    boolean hasNext();
+
+    /**
+     * Effetti-collaterali: avanza il cursore
+     * 
+     * Post-condizioni: restituisce il prossimo elemento, solleva
+     * NoSuchElementException se non ci sono più elementi
+     */
+    int nextInt();
+}
@@ -1,16 +1,18 @@
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
 
 /**
  * OVERVIEW: Le istanze di questa classe rappresentano insiemi (non limitati) di
  * interi. Gli oggetti di questo tipo sono mutabili. Un tipico IntSet è :
  * {x1,x2,x3,...,xn}
  * 
- * Funzione di astrazione: AF(mySet) = {mySet[i].intValue | 0 <= i < mySet.size}
+ * Funzione di astrazione: AF(elements, size) = {elements[i] | 0 <= i < size}
  * 
- * Invariante di rappresentazione: mySet != null. Per ogni n compreso fra 0 e
- * mySet.size mySet[n] è un numero intero. In mySet non esistono duplicati
+ * Invariante di rappresentazione: elements != null, 0 <= size <=
+ * elements.length. In elements[0..size) non esistono duplicati
  * 
  * Invariante di astrazione: l'IntSet più piccolo è l'IntSet vuoto che ha
  * dimensione zero, in un IntSet non sono presenti elementi duplicati
@@ -18,12 +20,28 @@ import java.util.List;
 public class IntSet implements Iterable<Integer> {
 
     /**
-     * Struttura dati contenente gli elementi dell'insieme
+     * Struttura dati contenente gli elementi dell'insieme, nelle prime size
+     * posizioni e in ordine di inserimento
      */
-    protected List<Integer> set;
+    protected int[] elements;
+
+    /** Numero di elementi dell'insieme */
+    protected int size;
 
     public IntSet() {
-        set = new LinkedList<>();
+        this(8);
+    }
+
+    /**
+     * Post-condizioni: inizializza un nuovo insieme vuoto con spazio per capacity
+     * elementi, per le sottoclassi che memorizzano gli elementi altrove e non
+     * usano elements. Solleva IllegalArgumentException se capacity è minore di 0
+     */
+    protected IntSet(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("La capacità non può essere negativa");
+        elements = new int[capacity];
+        size = 0;
     }
 
     /**
@@ -40,8 +58,11 @@ public class IntSet implements Iterable<Integer> {
      * se newValue non è presente, oppure IntSet rimane invariato
      */
     public void insert(int x) {
-        if (!(contains(x)))
-            set.add(x);
+        if (!(contains(x))) {
+            if (size == elements.length)
+                elements = Arrays.copyOf(elements, Math.max(8, size * 2));
+            elements[size++] = x;
+        }
     }
 
     /**
@@ -58,8 +79,11 @@ public class IntSet implements Iterable<Integer> {
      * {mySet[i].intValue | 0 <= i < mySet.size, !mySet[i] = x}
      */
     public void remove(int x) {
-        if (contains(x))
-            set.remove(Integer.valueOf(x));
+        int i = indexOf(x);
+        if (i != -1) {
+            System.arraycopy(elements, i + 1, elements, i, size - i - 1);
+            size--;
+        }
     }
 
     /**
@@ -71,9 +95,9 @@ public class IntSet implements Iterable<Integer> {
      * restituisce sempre l'ultimo elemento dell'insieme
      */
     public int choose() {
-        if (set.size() <= 0)
+        if (size <= 0)
             throw new EmptyException();
-        return set.get(0);
+        return elements[0];
     }
 
     /**
@@ -83,7 +107,7 @@ public class IntSet implements Iterable<Integer> {
      * dimensione dell'IntSet corrisponde alla dimensione di mySet
      */
     public int size() {
-        return set.size();
+        return size;
     }
 
     /**
@@ -93,26 +117,67 @@ public class IntSet implements Iterable<Integer> {
      * contiene x se esso è uno degli elementi di mySet
      */
     public boolean contains(int x) {
-        return set.contains(x);
+        return indexOf(x) != -1;
+    }
+
+    /**
+     * Post-condizioni: restituisce la posizione di x in elements, -1 se x non è
+     * in this
+     */
+    private int indexOf(int x) {
+        for (int i = 0; i < size; i++)
+            if (elements[i] == x)
+                return i;
+        return -1;
     }
 
     @Override
     public Iterator<Integer> iterator() {
-
+        IntIterator it = intIterator();
         return new Iterator<Integer>() {
-            private int index = 0;
-
             @Override
             public boolean hasNext() {
-                return set.size() > index;
+                return it.hasNext();
             }
 
             @Override
             public Integer next() {
-                return set.get(index++);
+                return it.nextInt();
+            }
+        };
+    }
+
+    /**
+     * Post-condizioni: restituisce un iteratore sugli elementi di this che li
+     * restituisce come int, senza creare oggetti Integer
+     */
+    public IntIterator intIterator() {
+        return new IntIterator() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
             }
 
+            @Override
+            public int nextInt() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return elements[index++];
+            }
         };
     }
 
+    /**
+     * Post-condizioni: esegue action su ogni elemento di this, scorrendo
+     * direttamente la struttura dati senza creare oggetti. Solleva
+     * NullPointerException se action è null
+     */
+    public void forEachInt(IntConsumer action) {
+        Objects.requireNonNull(action);
+        for (int i = 0; i < size; i++)
+            action.accept(elements[i]);
+    }
+
 }
\ No newline at end of file
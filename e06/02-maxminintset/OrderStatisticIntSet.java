@@ -0,0 +1,340 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * OVERVIEW: Le istanze di questa classe rappresentano insiemi (non limitati) di
+ * interi che, oltre al massimo e al minimo come MaxMinIntSet, rispondono a
+ * interrogazioni d'ordine: il k-esimo elemento, il rango di un valore, il
+ * numero di elementi in un intervallo, floor e ceiling. Gli oggetti di questo
+ * tipo sono mutabili. Un tipico OrderStatisticIntSet è : {x1,x2,x3,...,xn}
+ *
+ * Gli elementi sono mantenuti in un treap (albero binario di ricerca con
+ * priorità casuali, quindi bilanciato con alta probabilità) in cui ogni nodo
+ * conosce la dimensione del proprio sottoalbero; tutte le operazioni costano
+ * O(log n) atteso.
+ *
+ * Funzione di astrazione: AF(root) = {n.key | n è un nodo dell'albero root}
+ *
+ * Invariante di rappresentazione: l'albero root è un albero binario di ricerca
+ * sulle chiavi senza chiavi duplicate, ogni nodo ha priorità maggiore o uguale
+ * a quella dei figli, per ogni nodo n n.size = 1 + size(n.left) +
+ * size(n.right). L'array elements ereditato da IntSet ha lunghezza 0 e non
+ * viene usato. Se l'albero non è vuoto max e min sono la chiave più grande e la
+ * più piccola, altrimenti max == Integer.MIN_VALUE e min == Integer.MAX_VALUE
+ *
+ * Invariante di astrazione: l'IntSet più piccolo è l'IntSet vuoto che ha
+ * dimensione zero, in un IntSet non sono presenti elementi duplicati
+ */
+public class OrderStatisticIntSet extends MaxMinIntSet {
+
+    /** Radice del treap, null se l'insieme è vuoto */
+    private Node root;
+
+    /** Generatore delle priorità dei nodi */
+    private final Random priorities = new Random();
+
+    public OrderStatisticIntSet() {
+        super(0);
+    }
+
+    @Override
+    public void insert(int x) {
+        if (contains(x))
+            return;
+        Node[] parts = splitLess(root, x);
+        root = merge(merge(parts[0], new Node(x, priorities.nextInt())), parts[1]);
+        if (x > max)
+            max = x;
+        if (x < min)
+            min = x;
+    }
+
+    @Override
+    public void remove(int x) {
+        if (!contains(x))
+            return;
+        Node[] lower = splitLess(root, x);
+        Node[] upper = splitLessOrEqual(lower[1], x);
+        root = merge(lower[0], upper[1]);
+        if (root == null) {
+            max = Integer.MIN_VALUE;
+            min = Integer.MAX_VALUE;
+            return;
+        }
+        if (x == max)
+            max = last(root);
+        if (x == min)
+            min = first(root);
+    }
+
+    @Override
+    public int choose() {
+        if (root == null)
+            throw new EmptyException();
+        return root.key;
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public boolean contains(int x) {
+        Node n = root;
+        while (n != null && n.key != x)
+            n = x < n.key ? n.left : n.right;
+        return n != null;
+    }
+
+    /**
+     * Post-condizioni: restituisce il k-esimo elemento di this in ordine crescente,
+     * contando da 0. Solleva IndexOutOfBoundsException se k < 0 o k >= size()
+     */
+    public int kth(int k) {
+        if (k < 0 || k >= size())
+            throw new IndexOutOfBoundsException("k deve essere compreso fra 0 e " + (size() - 1));
+        Node n = root;
+        while (true) {
+            int leftSize = size(n.left);
+            if (k < leftSize) {
+                n = n.left;
+            } else if (k == leftSize) {
+                return n.key;
+            } else {
+                k -= leftSize + 1;
+                n = n.right;
+            }
+        }
+    }
+
+    /**
+     * Post-condizioni: restituisce il numero di elementi di this strettamente
+     * minori di x, che coincide con la posizione di x nell'ordine crescente se x
+     * appartiene a this
+     */
+    public int rank(int x) {
+        int rank = 0;
+        Node n = root;
+        while (n != null) {
+            if (n.key < x) {
+                rank += size(n.left) + 1;
+                n = n.right;
+            } else {
+                n = n.left;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Post-condizioni: restituisce il numero di elementi x di this tali che lo <=
+     * x <= hi, 0 se lo > hi
+     */
+    public int countInRange(int lo, int hi) {
+        if (lo > hi)
+            return 0;
+        int lessOrEqualHi = 0;
+        Node n = root;
+        while (n != null) {
+            if (n.key <= hi) {
+                lessOrEqualHi += size(n.left) + 1;
+                n = n.right;
+            } else {
+                n = n.left;
+            }
+        }
+        return lessOrEqualHi - rank(lo);
+    }
+
+    /**
+     * Post-condizioni: restituisce il più grande elemento di this minore o uguale
+     * a x, solleva NoSuchElementException se non esiste
+     */
+    public int floor(int x) {
+        Node n = root, found = null;
+        while (n != null) {
+            if (n.key == x)
+                return x;
+            if (n.key < x) {
+                found = n;
+                n = n.right;
+            } else {
+                n = n.left;
+            }
+        }
+        if (found == null)
+            throw new NoSuchElementException("Nessun elemento minore o uguale a " + x);
+        return found.key;
+    }
+
+    /**
+     * Post-condizioni: restituisce il più piccolo elemento di this maggiore o
+     * uguale a x, solleva NoSuchElementException se non esiste
+     */
+    public int ceiling(int x) {
+        Node n = root, found = null;
+        while (n != null) {
+            if (n.key == x)
+                return x;
+            if (n.key > x) {
+                found = n;
+                n = n.left;
+            } else {
+                n = n.right;
+            }
+        }
+        if (found == null)
+            throw new NoSuchElementException("Nessun elemento maggiore o uguale a " + x);
+        return found.key;
+    }
+
+    /**
+     * Post-condizioni: restituisce un iteratore sugli elementi di this in ordine
+     * crescente, che li restituisce come int
+     */
+    @Override
+    public IntIterator intIterator() {
+        return new IntIterator() {
+            private final Deque<Node> path = new ArrayDeque<>();
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(Node n) {
+                for (; n != null; n = n.left)
+                    path.push(n);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                Node n = path.pop();
+                pushLeft(n.right);
+                return n.key;
+            }
+        };
+    }
+
+    /**
+     * Post-condizioni: esegue action su ogni elemento di this in ordine crescente,
+     * visitando l'albero senza creare oggetti
+     */
+    @Override
+    public void forEachInt(IntConsumer action) {
+        Objects.requireNonNull(action);
+        forEachInt(root, action);
+    }
+
+    private static void forEachInt(Node n, IntConsumer action) {
+        while (n != null) {
+            forEachInt(n.left, action);
+            action.accept(n.key);
+            n = n.right;
+        }
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private static int first(Node n) {
+        while (n.left != null)
+            n = n.left;
+        return n.key;
+    }
+
+    private static int last(Node n) {
+        while (n.right != null)
+            n = n.right;
+        return n.key;
+    }
+
+    /**
+     * Post-condizioni: divide l'albero t in due alberi, il primo con le chiavi
+     * minori di x e il secondo con le chiavi maggiori o uguali a x
+     */
+    private static Node[] splitLess(Node t, int x) {
+        if (t == null)
+            return new Node[2];
+        if (t.key < x) {
+            Node[] parts = splitLess(t.right, x);
+            t.right = parts[0];
+            parts[0] = t.update();
+            return parts;
+        }
+        Node[] parts = splitLess(t.left, x);
+        t.left = parts[1];
+        parts[1] = t.update();
+        return parts;
+    }
+
+    /**
+     * Post-condizioni: divide l'albero t in due alberi, il primo con le chiavi
+     * minori o uguali a x e il secondo con le chiavi maggiori di x
+     */
+    private static Node[] splitLessOrEqual(Node t, int x) {
+        if (t == null)
+            return new Node[2];
+        if (t.key <= x) {
+            Node[] parts = splitLessOrEqual(t.right, x);
+            t.right = parts[0];
+            parts[0] = t.update();
+            return parts;
+        }
+        Node[] parts = splitLessOrEqual(t.left, x);
+        t.left = parts[1];
+        parts[1] = t.update();
+        return parts;
+    }
+
+    /**
+     * Pre-condizioni: ogni chiave di a è minore di ogni chiave di b
+     *
+     * Post-condizioni: restituisce l'albero che contiene le chiavi di a e di b
+     */
+    private static Node merge(Node a, Node b) {
+        if (a == null)
+            return b;
+        if (b == null)
+            return a;
+        if (a.priority >= b.priority) {
+            a.right = merge(a.right, b);
+            return a.update();
+        }
+        b.left = merge(a, b.left);
+        return b.update();
+    }
+
+    /**
+     * OVERVIEW: nodo del treap, mutabile, che conosce la dimensione del proprio
+     * sottoalbero
+     */
+    private static final class Node {
+        private final int key;
+        private final int priority;
+        private int size = 1;
+        private Node left, right;
+
+        Node(int key, int priority) {
+            this.key = key;
+            this.priority = priority;
+        }
+
+        /** Post-condizioni: ricalcola size a partire dai figli e restituisce this */
+        Node update() {
+            size = 1 + OrderStatisticIntSet.size(left) + OrderStatisticIntSet.size(right);
+            return this;
+        }
+    }
+}
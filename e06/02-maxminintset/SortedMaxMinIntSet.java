@@ -0,0 +1,120 @@
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+
+/**
+ * OVERVIEW: Le istanze di questa classe rappresentano insiemi (non limitati) di
+ * interi che permettono di accedere all'elemento più grande e quello più piccolo
+ * dell'insieme, come MaxMinIntSet. Gli oggetti di questo tipo sono mutabili. Un
+ * tipico SortedMaxMinIntSet è : {x1,x2,x3,...,xn}
+ *
+ * Gli elementi sono mantenuti in un albero di ricerca bilanciato, quindi insert,
+ * remove e contains costano O(log n) e, quando viene rimosso il massimo o il
+ * minimo, il nuovo estremo si ottiene in O(log n) senza riscandire l'insieme.
+ *
+ * Funzione di astrazione: AF(sorted) = {x | x appartiene a sorted}
+ *
+ * Invariante di rappresentazione: sorted != null, l'array elements ereditato
+ * da IntSet ha lunghezza 0 e non viene usato. Se sorted non è vuoto max ==
+ * sorted.last() e min == sorted.first(), altrimenti max == Integer.MIN_VALUE e
+ * min == Integer.MAX_VALUE
+ *
+ * Invariante di astrazione: l'IntSet più piccolo è l'IntSet vuoto che ha
+ * dimensione zero, in un IntSet non sono presenti elementi duplicati
+ */
+public class SortedMaxMinIntSet extends MaxMinIntSet {
+
+    /** Struttura dati contenente gli elementi dell'insieme, in ordine crescente */
+    private final TreeSet<Integer> sorted = new TreeSet<>();
+
+    public SortedMaxMinIntSet() {
+        super(0);
+    }
+
+    @Override
+    public void insert(int x) {
+        if (sorted.add(x)) {
+            if (x > max)
+                max = x;
+            if (x < min)
+                min = x;
+        }
+    }
+
+    @Override
+    public void remove(int x) {
+        if (!sorted.remove(x))
+            return;
+        if (sorted.isEmpty()) {
+            max = Integer.MIN_VALUE;
+            min = Integer.MAX_VALUE;
+            return;
+        }
+        if (x == max)
+            max = sorted.last();
+        if (x == min)
+            min = sorted.first();
+    }
+
+    @Override
+    public int choose() {
+        if (sorted.isEmpty())
+            throw new EmptyException();
+        return sorted.first();
+    }
+
+    @Override
+    public int size() {
+        return sorted.size();
+    }
+
+    @Override
+    public boolean contains(int x) {
+        return sorted.contains(x);
+    }
+
+    /**
+     * Post-condizioni: restituisce un iteratore sugli elementi di this in ordine
+     * crescente
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        return Collections.unmodifiableSortedSet(sorted).iterator();
+    }
+
+    /**
+     * Post-condizioni: restituisce un iteratore sugli elementi di this in ordine
+     * crescente, che li restituisce come int. Il TreeSet memorizza gli elementi
+     * come Integer, creati da insert: l'iteratore li converte senza crearne di
+     * nuovi, ma alloca comunque l'iteratore del TreeSet
+     */
+    @Override
+    public IntIterator intIterator() {
+        Iterator<Integer> it = sorted.iterator();
+        return new IntIterator() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * Post-condizioni: esegue action su ogni elemento di this in ordine crescente,
+     * convertendo in int gli Integer memorizzati nel TreeSet; alloca l'iteratore
+     * del TreeSet. Solleva NullPointerException se action è null
+     */
+    @Override
+    public void forEachInt(IntConsumer action) {
+        Objects.requireNonNull(action);
+        for (int x : sorted)
+            action.accept(x);
+    }
+}
@@ -0,0 +1,577 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * OVERVIEW: Le istanze di questa classe rappresentano dei polinomi a
+ * coefficienti int, con le stesse operazioni (e lo stesso overflow) di Poly;
+ * AdaptivePoly è immutabile. A differenza di Poly la rappresentazione dipende
+ * da quanti coefficienti sono diversi da 0: un polinomio pieno come 1 + 2x +
+ * 3x^2 è memorizzato come array denso [1, 2, 3], uno sparso come x^1000000 + 1
+ * come i soli termini {0: 1, 1000000: 1}.
+ * <p>
+ * Dopo ogni operazione il risultato è denso se almeno un coefficiente su
+ * DENSE_RATIO (fino al grado) è diverso da 0, sparso altrimenti. La scelta
+ * dipende solo dal polinomio, quindi due AdaptivePoly uguali hanno sempre la
+ * stessa rappresentazione. Il prodotto di due polinomi densi usa
+ * PolyMultiplier, negli altri casi i prodotti dei termini sono fusi in ordine
+ * di grado con una coda con priorità (algoritmo di Johnson).
+ * <p>
+ * Funzione di astrazione: AF(dense, degrees, coeffs) = dense[0]x^0 + ... +
+ * dense[dense.length - 1]x^(dense.length - 1) se dense != null, altrimenti
+ * coeffs[0]x^degrees[0] + ... + coeffs[k - 1]x^degrees[k - 1] con k =
+ * degrees.length, 0x^0 se k = 0
+ * <p>
+ * Invariante di rappresentazione: esattamente uno fra dense e (degrees,
+ * coeffs) è diverso da null. Se dense != null: dense.length > 0, l'ultimo
+ * elemento è diverso da 0 e isDense(termini diversi da 0, dense.length - 1).
+ * Altrimenti degrees e coeffs hanno la stessa lunghezza, degrees è
+ * strettamente crescente e non negativo, ogni coeffs[i] è diverso da 0 e
+ * isDense(degrees.length, ultimo grado) è false
+ */
+public class AdaptivePoly {
+
+    /**
+     * Un polinomio è denso se almeno un coefficiente su DENSE_RATIO è diverso da
+     * 0: l'array denso occupa allora al più il doppio dei due array sparsi e
+     * non richiede ricerche
+     */
+    static final int DENSE_RATIO = 4;
+
+    /** Numero di passi da cui evaluateMany divide i punti fra i thread */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /** I coefficienti dal grado 0, null se this è sparso */
+    private final int[] dense;
+
+    /** I gradi dei termini diversi da 0 in ordine crescente, null se this è denso */
+    private final int[] degrees;
+
+    /** I coefficienti dei termini: coeffs[i] è quello di grado degrees[i] */
+    private final int[] coeffs;
+
+    /**
+     * Post-condizioni: Inizializza un nuovo polinomio 0, il polinomio 0 è il
+     * polinomio 0x^0
+     */
+    public AdaptivePoly() {
+        this(null, new int[0], new int[0]);
+    }
+
+    /**
+     * Post-condizioni: Inizializza un nuovo polinomio cx^n, se c è uguale a 0
+     * inizializza il polinomio zero. Solleva NegativeExponentException se n è
+     * minore di 0
+     */
+    public AdaptivePoly(int c, int n) {
+        this(monomial(c, n));
+    }
+
+    /**
+     * Post-condizioni: Inizializza un nuovo polinomio con gli stessi coefficienti
+     * di p. Solleva NullPointerException se p è null
+     */
+    public AdaptivePoly(Poly p) {
+        this(fromPoly(p));
+    }
+
+    /** Post-condizioni: copia in this il polinomio p */
+    private AdaptivePoly(AdaptivePoly p) {
+        this(p.dense, p.degrees, p.coeffs);
+    }
+
+    /**
+     * Pre-condizioni: dense, degrees e coeffs rispettano l'invariante di
+     * rappresentazione
+     *
+     * Post-condizioni: inizializza this con gli array in input, senza copiarli
+     */
+    private AdaptivePoly(int[] dense, int[] degrees, int[] coeffs) {
+        this.dense = dense;
+        this.degrees = degrees;
+        this.coeffs = coeffs;
+        assert repOk();
+    }
+
+    /**
+     * Post-condizioni: restituisce true se this è memorizzato solo con i termini
+     * diversi da 0, false se è memorizzato come array denso
+     */
+    public boolean isSparse() {
+        return dense == null;
+    }
+
+    /**
+     * Post-condizioni: restituisce un Iteratore sui gradi del polinomio con
+     * coefficente diverso da 0, ordinati in ordine crescente
+     */
+    public Iterator<Integer> degrees() {
+        return new DegreesGenerator(this);
+    }
+
+    /**
+     * GENERATORE: sui polinomi densi salta i coefficienti nulli, su quelli sparsi
+     * scorre direttamente i gradi
+     */
+    static class DegreesGenerator implements Iterator<Integer> {
+        private final AdaptivePoly p;
+        private int index;
+
+        DegreesGenerator(AdaptivePoly p) {
+            this.p = p;
+            skipZeros();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < (p.dense != null ? p.dense.length : p.degrees.length);
+        }
+
+        @Override
+        public Integer next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            int degree = p.dense != null ? index : p.degrees[index];
+            index++;
+            skipZeros();
+            return degree;
+        }
+
+        private void skipZeros() {
+            if (p.dense != null)
+                while (index < p.dense.length && p.dense[index] == 0)
+                    index++;
+        }
+    }
+
+    /** Post-condizioni: restituisce il grado di this */
+    public int degree() {
+        if (dense != null)
+            return dense.length - 1;
+        return degrees.length == 0 ? 0 : degrees[degrees.length - 1];
+    }
+
+    /** Post-condizioni: restituisce il coefficente di grado d, 0 se d < 0 o d > degree() */
+    public int coeff(int d) {
+        if (d < 0 || d > degree())
+            return 0;
+        if (dense != null)
+            return dense[d];
+        int i = Arrays.binarySearch(degrees, d);
+        return i >= 0 ? coeffs[i] : 0;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo polinomio corrispondente alla somma di
+     * this e q. Solleva NullPointerException se q è null
+     *
+     * Correttezza: se il polinomio di grado maggiore è denso gli si sommano i
+     * termini dell'altro, che hanno grado minore o uguale; altrimenti i termini
+     * dei due polinomi sono fusi in ordine di grado come nel Poly sparso
+     */
+    public AdaptivePoly add(AdaptivePoly q) {
+        Objects.requireNonNull(q);
+        AdaptivePoly bigger = q.degree() > degree() ? q : this;
+        AdaptivePoly smaller = bigger == this ? q : this;
+        if (bigger.dense != null) {
+            int[] sum = Arrays.copyOf(bigger.dense, bigger.dense.length);
+            if (smaller.dense != null) {
+                for (int i = 0; i < smaller.dense.length; i++)
+                    sum[i] += smaller.dense[i];
+            } else {
+                for (int i = 0; i < smaller.degrees.length; i++)
+                    sum[smaller.degrees[i]] += smaller.coeffs[i];
+            }
+            return fromDense(sum);
+        }
+        int[][] a = terms(), b = q.terms();
+        int n = a[0].length, m = b[0].length;
+        int[] d = new int[n + m];
+        int[] c = new int[n + m];
+        int i = 0, j = 0, k = 0;
+        while (i < n || j < m) {
+            if (j == m || (i < n && a[0][i] < b[0][j])) {
+                d[k] = a[0][i];
+                c[k++] = a[1][i++];
+            } else if (i == n || b[0][j] < a[0][i]) {
+                d[k] = b[0][j];
+                c[k++] = b[1][j++];
+            } else {
+                int sum = a[1][i] + b[1][j];
+                if (sum != 0) {
+                    d[k] = a[0][i];
+                    c[k++] = sum;
+                }
+                i++;
+                j++;
+            }
+        }
+        return fromSparse(Arrays.copyOf(d, k), Arrays.copyOf(c, k));
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo polinomio corrispondente alla
+     * differenza fra this e q. Solleva NullPointerException se q è null
+     */
+    public AdaptivePoly sub(AdaptivePoly q) {
+        Objects.requireNonNull(q);
+        return add(q.minus());
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo polinomio corrispondente al prodotto
+     * fra this e q. Solleva NullPointerException se q è null
+     */
+    public AdaptivePoly mul(AdaptivePoly q) {
+        Objects.requireNonNull(q);
+        if (dense != null && q.dense != null)
+            return fromDense(PolyMultiplier.multiply(dense, q.dense));
+        int[][] a = terms(), b = q.terms();
+        int[][] product = multiply(a[0], a[1], b[0], b[1]);
+        return fromSparse(product[0], product[1]);
+    }
+
+    /** Post-condizioni: restituisce un nuovo polinomio opposto di this */
+    public AdaptivePoly minus() {
+        if (dense != null) {
+            int[] opposite = new int[dense.length];
+            for (int i = 0; i < dense.length; i++)
+                opposite[i] = -dense[i];
+            return new AdaptivePoly(opposite, null, null);
+        }
+        int[] opposite = new int[coeffs.length];
+        for (int i = 0; i < coeffs.length; i++)
+            opposite[i] = -coeffs[i];
+        return new AdaptivePoly(null, degrees, opposite);
+    }
+
+    /**
+     * Post-condizioni: restituisce il valore di this in x, con l'overflow degli
+     * int come Poly.evaluate
+     *
+     * Correttezza: sui polinomi sparsi la regola di Horner salta i gradi mancanti
+     * moltiplicando per x^(degrees[i + 1] - degrees[i]), calcolata per quadrati
+     */
+    public int evaluate(int x) {
+        int value = 0;
+        if (dense != null) {
+            for (int i = dense.length - 1; i >= 0; i--)
+                value = value * x + dense[i];
+            return value;
+        }
+        for (int i = degrees.length - 1; i >= 0; i--) {
+            int gap = degrees[i] - (i > 0 ? degrees[i - 1] : 0);
+            value = (value + coeffs[i]) * pow(x, gap);
+        }
+        return value;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo array il cui elemento i-esimo è
+     * evaluate(xs[i]); se i passi totali sono molti i punti vengono divisi fra i
+     * thread del ForkJoinPool comune. Solleva NullPointerException se xs è null
+     */
+    public int[] evaluateMany(int[] xs) {
+        Objects.requireNonNull(xs);
+        int[] values = new int[xs.length];
+        long steps = dense != null ? dense.length : degrees.length;
+        if (xs.length * steps >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSetAll(values, i -> evaluate(xs[i]));
+        } else {
+            for (int i = 0; i < xs.length; i++)
+                values[i] = evaluate(xs[i]);
+        }
+        return values;
+    }
+
+    /**
+     * Post-condizioni: restituisce la rappresentazione testuale di this con i
+     * soli termini diversi da 0 (0x^0 per il polinomio zero), uguale per entrambe
+     * le rappresentazioni
+     */
+    @Override
+    public String toString() {
+        int[][] t = terms();
+        StringBuilder polinomio = new StringBuilder("Polinomio: ");
+        if (t[0].length == 0)
+            polinomio.append("0x^0");
+        for (int i = 0; i < t[0].length; i++) {
+            if (i > 0)
+                polinomio.append(" + ");
+            polinomio.append(t[1][i]).append("x^").append(t[0][i]);
+        }
+        return polinomio.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof AdaptivePoly))
+            return false;
+        AdaptivePoly compare = (AdaptivePoly) obj;
+        // Per RI due polinomi uguali hanno la stessa rappresentazione
+        return Arrays.equals(dense, compare.dense) && Arrays.equals(degrees, compare.degrees)
+                && Arrays.equals(coeffs, compare.coeffs);
+    }
+
+    @Override
+    public int hashCode() {
+        if (dense != null)
+            return Arrays.hashCode(dense);
+        return 31 * Arrays.hashCode(degrees) + Arrays.hashCode(coeffs);
+    }
+
+    public boolean repOk() {
+        if ((dense == null) == (degrees == null) || (degrees == null) != (coeffs == null))
+            return false;
+        if (dense != null) {
+            if (dense.length == 0 || dense[dense.length - 1] == 0)
+                return false;
+            int terms = 0;
+            for (int c : dense)
+                if (c != 0)
+                    terms++;
+            return isDense(terms, dense.length - 1);
+        }
+        if (degrees.length != coeffs.length)
+            return false;
+        for (int i = 0; i < degrees.length; i++)
+            if (coeffs[i] == 0 || degrees[i] < 0 || (i > 0 && degrees[i - 1] >= degrees[i]))
+                return false;
+        return degrees.length == 0 || !isDense(degrees.length, degrees[degrees.length - 1]);
+    }
+
+    /**
+     * Post-condizioni: restituisce true se un polinomio con terms termini diversi
+     * da 0 e grado degree va memorizzato come array denso
+     */
+    private static boolean isDense(long terms, long degree) {
+        return terms > 0 && terms * DENSE_RATIO >= degree + 1;
+    }
+
+    /**
+     * Post-condizioni: restituisce gradi e coefficienti dei termini diversi da 0
+     * di this, in ordine crescente di grado
+     */
+    private int[][] terms() {
+        if (dense == null)
+            return new int[][] { degrees, coeffs };
+        int k = 0;
+        for (int c : dense)
+            if (c != 0)
+                k++;
+        int[] d = new int[k];
+        int[] c = new int[k];
+        k = 0;
+        for (int i = 0; i < dense.length; i++) {
+            if (dense[i] != 0) {
+                d[k] = i;
+                c[k++] = dense[i];
+            }
+        }
+        return new int[][] { d, c };
+    }
+
+    /**
+     * Pre-condizioni: p non è vuoto
+     *
+     * Post-condizioni: restituisce il polinomio con coefficienti p, eventualmente
+     * con zeri finali, nella rappresentazione richiesta dall'invariante
+     */
+    private static AdaptivePoly fromDense(int[] p) {
+        int length = p.length;
+        while (length > 1 && p[length - 1] == 0)
+            length--;
+        int terms = 0;
+        for (int i = 0; i < length; i++)
+            if (p[i] != 0)
+                terms++;
+        if (!isDense(terms, length - 1)) {
+            int[] d = new int[terms];
+            int[] c = new int[terms];
+            for (int i = 0, k = 0; i < length; i++) {
+                if (p[i] != 0) {
+                    d[k] = i;
+                    c[k++] = p[i];
+                }
+            }
+            return new AdaptivePoly(null, d, c);
+        }
+        return new AdaptivePoly(length == p.length ? p : Arrays.copyOf(p, length), null, null);
+    }
+
+    /**
+     * Pre-condizioni: degrees è strettamente crescente e non negativo, coeffs ha
+     * la stessa lunghezza e non contiene 0
+     *
+     * Post-condizioni: restituisce il polinomio con i termini in input nella
+     * rappresentazione richiesta dall'invariante
+     */
+    private static AdaptivePoly fromSparse(int[] degrees, int[] coeffs) {
+        if (degrees.length == 0 || !isDense(degrees.length, degrees[degrees.length - 1]))
+            return new AdaptivePoly(null, degrees, coeffs);
+        int[] p = new int[degrees[degrees.length - 1] + 1];
+        for (int i = 0; i < degrees.length; i++)
+            p[degrees[i]] = coeffs[i];
+        return new AdaptivePoly(p, null, null);
+    }
+
+    private static AdaptivePoly monomial(int c, int n) {
+        if (n < 0)
+            throw new NegativeExponentException();
+        return c == 0 ? new AdaptivePoly() : fromSparse(new int[] { n }, new int[] { c });
+    }
+
+    private static AdaptivePoly fromPoly(Poly p) {
+        Objects.requireNonNull(p);
+        int[] c = new int[p.degree() + 1];
+        for (int i = 0; i < c.length; i++)
+            c[i] = p.coeff(i);
+        return fromDense(c);
+    }
+
+    /** Post-condizioni: restituisce x^e con l'overflow degli int, e >= 0 */
+    private static int pow(int x, int e) {
+        int r = 1;
+        for (; e > 0; e >>= 1) {
+            if ((e & 1) != 0)
+                r *= x;
+            x *= x;
+        }
+        return r;
+    }
+
+    /**
+     * Pre-condizioni: ad e bd sono ordinati in ordine strettamente crescente e
+     * hanno la stessa lunghezza di ac e bc
+     *
+     * Post-condizioni: restituisce gradi e coefficenti, in ordine crescente di
+     * grado e senza coefficenti nulli, del prodotto fra il polinomio con termini
+     * (ad, ac) e quello con termini (bd, bc)
+     *
+     * Solleva NegativeExponentException se il grado massimo del prodotto non è
+     * rappresentabile come int
+     *
+     * Correttezza: i prodotti a_i b_j escono dalla coda con priorità in ordine di
+     * grado: la riga i + 1 entra quando esce (i, 0), che ha grado minore di (i +
+     * 1, 0), e dopo (i, j) entra (i, j + 1), che ha grado maggiore; quindi i gradi
+     * uguali sono consecutivi e vengono sommati subito
+     */
+    private static int[][] multiply(int[] ad, int[] ac, int[] bd, int[] bc) {
+        if (ad.length > bd.length)
+            return multiply(bd, bc, ad, ac);
+        int n = ad.length, m = bd.length;
+        if (n > 0 && (long) ad[n - 1] + bd[m - 1] > Integer.MAX_VALUE)
+            throw new NegativeExponentException();
+        int[] rd = new int[n + m];
+        int[] rc = new int[n + m];
+        int k = 0;
+        if (n > 0) {
+            ProductHeap heap = new ProductHeap(ad, bd);
+            heap.push(0);
+            long current = heap.key(0);
+            int sum = 0;
+            while (true) {
+                boolean done = heap.isEmpty();
+                int i = done ? 0 : heap.top(), j = done ? 0 : heap.column(i);
+                long degree = done ? -1 : heap.key(i);
+                if (degree != current) {
+                    if (sum != 0) {
+                        if (k == rd.length) {
+                            rd = Arrays.copyOf(rd, 2 * k);
+                            rc = Arrays.copyOf(rc, 2 * k);
+                        }
+                        rd[k] = (int) current;
+                        rc[k++] = sum;
+                    }
+                    current = degree;
+                    sum = 0;
+                }
+                if (done)
+                    break;
+                sum += ac[i] * bc[j];
+                heap.advanceTop(m);
+                if (j == 0 && i + 1 < n)
+                    heap.push(i + 1);
+            }
+        }
+        return new int[][] { Arrays.copyOf(rd, k), Arrays.copyOf(rc, k) };
+    }
+
+    /**
+     * OVERVIEW: coda con priorità (heap binario) delle righe del prodotto di
+     * Johnson, mutabile. La riga i rappresenta la coppia (i, column[i]) e ha come
+     * chiave il grado ad[i] + bd[column[i]]
+     */
+    private static final class ProductHeap {
+        private final int[] ad, bd;
+        private final int[] column;
+        private final int[] heap;
+        private int size;
+
+        ProductHeap(int[] ad, int[] bd) {
+            this.ad = ad;
+            this.bd = bd;
+            column = new int[ad.length];
+            heap = new int[ad.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /** Post-condizioni: restituisce la riga con la chiave minima */
+        int top() {
+            return heap[0];
+        }
+
+        int column(int row) {
+            return column[row];
+        }
+
+        long key(int row) {
+            return (long) ad[row] + bd[column[row]];
+        }
+
+        /** Effetti collaterali: inserisce la riga row, alla colonna 0 */
+        void push(int row) {
+            int pos = size++;
+            long key = key(row);
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (key(heap[parent]) <= key)
+                    break;
+                heap[pos] = heap[parent];
+                pos = parent;
+            }
+            heap[pos] = row;
+        }
+
+        /**
+         * Effetti collaterali: sposta la riga in cima alla colonna successiva, o la
+         * toglie se era all'ultima delle m colonne
+         */
+        void advanceTop(int m) {
+            int row = heap[0];
+            if (++column[row] == m) {
+                row = heap[--size];
+                if (size == 0)
+                    return;
+            }
+            long key = key(row);
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size)
+                    break;
+                if (child + 1 < size && key(heap[child + 1]) < key(heap[child]))
+                    child++;
+                if (key <= key(heap[child]))
+                    break;
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = row;
+        }
+    }
+}
@@ -1,7 +1,11 @@
+import java.lang.ref.WeakReference;
+import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
 
 /**
  * OVERVIEW: Le istanze di questa classe rappresentano dei polinomi, Poly è
@@ -20,6 +24,39 @@ import java.util.Objects;
 public class Poly {
     private final int[] poly;
 
+    /**
+     * Numero di coefficenti (o di passi della regola di Horner per evaluateMany)
+     * da cui add, minus ed evaluateMany dividono il ciclo fra i thread del
+     * ForkJoinPool comune
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /** Numero massimo di punti nelle foglie dell'albero dei sottoprodotti di evaluateAt */
+    private static final int LEAF_POINTS = 32;
+
+    /**
+     * Sotto questa lunghezza del quoziente o del divisore il resto di evaluateAt
+     * si calcola con la divisione scolastica
+     */
+    private static final int DIVISION_THRESHOLD = 128;
+
+    /** Valore assoluto massimo del coefficente dei monomi condivisi da valueOf */
+    private static final int CACHE_COEFF = 128;
+
+    /** I monomi condivisi da valueOf hanno grado minore di CACHE_DEGREE */
+    private static final int CACHE_DEGREE = 16;
+
+    /** Il polinomio zero, condiviso da valueOf */
+    private static final Poly ZERO = new Poly();
+
+    /**
+     * I monomi cx^n condivisi da valueOf, nella posizione (c + CACHE_COEFF) *
+     * CACHE_DEGREE + n; i riferimenti deboli lasciano raccogliere al garbage
+     * collector quelli non più usati
+     */
+    private static final AtomicReferenceArray<WeakReference<Poly>> MONOMIALS = new AtomicReferenceArray<>(
+            (2 * CACHE_COEFF + 1) * CACHE_DEGREE);
+
     /**
      * Post-condizioni: restituisce un Iteratore sui gradi del polinomio con
      * coefficente diverso da 0, ordinati in ordine crescente
@@ -93,6 +130,54 @@ public class Poly {
 
     }
 
+    /**
+     * Post-condizioni: restituisce un polinomio uguale a cx^n, solleva
+     * NegativeExponentException se n è minore di 0. Se c è 0 restituisce il
+     * polinomio zero condiviso; se |c| <= CACHE_COEFF e n < CACHE_DEGREE
+     * restituisce il monomio condiviso, creandolo se non esiste o se è stato
+     * raccolto dal garbage collector; altrimenti un nuovo Poly
+     * 
+     * Correttezza: i Poly sono immutabili, quindi condividere istanze uguali non
+     * cambia il risultato di nessuna operazione
+     */
+    public static Poly valueOf(int c, int n) {
+        if (n < 0)
+            throw new NegativeExponentException();
+        if (c == 0)
+            return ZERO;
+        if (c < -CACHE_COEFF || c > CACHE_COEFF || n >= CACHE_DEGREE)
+            return new Poly(c, n);
+        int slot = (c + CACHE_COEFF) * CACHE_DEGREE + n;
+        WeakReference<Poly> ref = MONOMIALS.get(slot);
+        Poly p = ref == null ? null : ref.get();
+        if (p == null) {
+            p = new Poly(c, n);
+            MONOMIALS.set(slot, new WeakReference<>(p));
+        }
+        return p;
+    }
+
+    /**
+     * Pre-condizioni: p rispetta le condizioni del costruttore Poly(int[] p)
+     * 
+     * Post-condizioni: restituisce il polinomio con coefficenti p: se è 0 o un
+     * monomio condiviso da valueOf(c, n) restituisce l'istanza condivisa,
+     * altrimenti un nuovo Poly che usa p senza copiarlo. Usato dalle operazioni
+     * di Poly e da PolyField per i risultati
+     */
+    static Poly valueOf(int[] p) {
+        if (p.length <= CACHE_DEGREE) {
+            int n = p.length - 1;
+            int c = p[n];
+            boolean monomial = c == 0 || (c >= -CACHE_COEFF && c <= CACHE_COEFF);
+            for (int i = 0; i < n && monomial; i++)
+                monomial = p[i] == 0;
+            if (monomial)
+                return valueOf(c, n);
+        }
+        return new Poly(p);
+    }
+
     /**
      * Post-condizioni: inizializza un nuovo polinomio attraverso l'array in input
      * solleva NullPointerException se p è null, solleva IllegalArgumentException se
@@ -103,8 +188,10 @@ public class Poly {
      * IllegalArgumentException, altrimenti p può essere utilizzato per
      * rappresentare un polinomio valido
      * 
+     * È usato anche da PolyField, p non viene copiato e non deve più essere
+     * modificato
      */
-    private Poly(int[] p) {
+    Poly(int[] p) {
         Objects.requireNonNull(p);
 
         if (p.length == 0)
@@ -156,26 +243,22 @@ public class Poly {
     public Poly add(Poly q) {
 
         Objects.requireNonNull(q);
-        int[] smaller = q.degree() > degree() ? this.getElements() : q.getElements();
-        int[] bigger = q.degree() > degree() ? q.getElements() : this.getElements();
-        int[] result = new int[bigger.length];
-        for (int i = 0; i < smaller.length; i++)
-            bigger[i] += smaller[i];
-
-        // Accorcio l'array fino ad avere nell'ultima posizione un coefficente diverso
-        // da 0 o fino a raggiungere lunghezza 1
-        int emptySpot = 0;
-        for (int i = result.length - 1; i > 0; i--) {
-            if (bigger[i] == 0) {
-                emptySpot++;
-            } else {
-                break;
-            }
+        int[] smaller = q.degree() > degree() ? poly : q.poly;
+        int[] bigger = q.degree() > degree() ? q.poly : poly;
+        // Sommo direttamente in un array nuovo: i coefficenti oltre smaller.length
+        // sono quelli di bigger
+        int[] somma = new int[bigger.length];
+        if (smaller.length >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, smaller.length).parallel().forEach(i -> somma[i] = bigger[i] + smaller[i]);
+        } else {
+            for (int i = 0; i < smaller.length; i++)
+                somma[i] = bigger[i] + smaller[i];
         }
+        System.arraycopy(bigger, smaller.length, somma, smaller.length, bigger.length - smaller.length);
 
-        bigger = Arrays.copyOf(bigger, bigger.length - emptySpot);
-
-        return new Poly(bigger);
+        // Accorcio l'array fino ad avere nell'ultima posizione un coefficente diverso
+        // da 0 o fino a raggiungere lunghezza 1, copiandolo solo se serve
+        return valueOf(trim(somma, somma.length));
     }
 
     /**
@@ -210,16 +293,207 @@ public class Poly {
     public Poly mul(Poly q) {
 
         Objects.requireNonNull(q);
-        int[] smaller = q.degree() > degree() ? this.getElements() : q.getElements();
-        int[] bigger = q.degree() > degree() ? q.getElements() : this.getElements();
-        Poly prodotto = new Poly();
+        int[] smaller = q.degree() > degree() ? poly : q.poly;
+        int[] bigger = q.degree() > degree() ? q.poly : poly;
+        // PolyMultiplier sceglie l'algoritmo in base al grado e calcola i
+        // coefficenti con lo stesso overflow degli int della somma dei monomi
+        int[] prodotto = PolyMultiplier.multiply(smaller, bigger);
 
-        for (int i = 0; i < smaller.length; i++) {
-            for (int j = 0; j < bigger.length; j++) {
-                prodotto = prodotto.add(new Poly(smaller[i] * bigger[j], i + j));
-            }
+        // Accorcio l'array fino ad avere nell'ultima posizione un coefficente diverso
+        // da 0 o fino a raggiungere lunghezza 1
+        int length = prodotto.length;
+        while (length > 1 && prodotto[length - 1] == 0)
+            length--;
+
+        return valueOf(length == prodotto.length ? prodotto : Arrays.copyOf(prodotto, length));
+    }
+
+    /**
+     * Post-condizioni: restituisce un array di due nuovi Polinomi, il quoziente e
+     * il resto della divisione fra this e q, tali che this = quoziente * q + resto
+     * e il grado del resto è minore di quello di q (oppure il resto è 0), con
+     * l'overflow degli int come mul
+     * <p>
+     * solleva NullPointerException se q è null, solleva ArithmeticException se q è
+     * il polinomio zero o se il quoziente non ha coefficenti interi, cioè se il
+     * coefficente di grado massimo di q non divide uno dei coefficenti da cui
+     * viene ricavato un termine del quoziente
+     * 
+     * Correttezza: a ogni passo il termine (c / lead)x^i del quoziente annulla il
+     * coefficente c di grado i + q.degree() del resto parziale, partendo dal grado
+     * più alto; quando i gradi sono finiti il resto ha grado minore di q
+     */
+    public Poly[] divmod(Poly q) {
+        Objects.requireNonNull(q);
+        int m = q.degree();
+        int lead = q.poly[m];
+        if (lead == 0)
+            throw new ArithmeticException("Divisione per il polinomio zero");
+        if (degree() < m)
+            return new Poly[] { ZERO, this };
+        int[] resto = getElements();
+        int[] quoziente = new int[degree() - m + 1];
+        for (int i = quoziente.length - 1; i >= 0; i--) {
+            int c = resto[i + m];
+            if (c % lead != 0)
+                throw new ArithmeticException("Il quoziente non ha coefficenti interi");
+            int f = c / lead;
+            quoziente[i] = f;
+            if (f != 0)
+                for (int j = 0; j <= m; j++)
+                    resto[i + j] -= f * q.poly[j];
+        }
+        return new Poly[] { valueOf(trim(quoziente, quoziente.length)), valueOf(trim(resto, Math.max(m, 1))) };
+    }
+
+    /**
+     * Post-condizioni: restituisce il massimo comun divisore di this e q a
+     * coefficenti interi, con il coefficente di grado massimo positivo: il
+     * massimo comun divisore dei contenuti (MCD dei coefficenti) moltiplicato per
+     * quello delle parti primitive. gcd(0, 0) è 0. I conti intermedi sono esatti,
+     * senza overflow. Solleva NullPointerException se q è null e
+     * ArithmeticException se un coefficente del risultato non è rappresentabile
+     * come int
+     * <p>
+     * Per gradi grandi è preferibile PolyField.gcd, che lavora modulo un primo
+     * 
+     * Correttezza: sequenza dei resti primitivi: il pseudo-resto di a per b,
+     * ottenuto moltiplicando a per potenze del coefficente di grado massimo di b,
+     * ha lo stesso MCD primitivo di a e b per il lemma di Gauss; dividerlo per il
+     * suo contenuto tiene piccoli i coefficenti senza cambiarlo. L'ultimo resto
+     * diverso da 0 è la parte primitiva del MCD
+     */
+    public Poly gcd(Poly q) {
+        Objects.requireNonNull(q);
+        BigInteger[] a = big(poly);
+        BigInteger[] b = big(q.poly);
+        if (a.length < b.length) {
+            BigInteger[] t = a;
+            a = b;
+            b = t;
+        }
+        if (b.length == 0)
+            return a.length == 0 ? ZERO : fromBig(a[a.length - 1].signum() < 0 ? negate(a) : a);
+        BigInteger content = content(a).gcd(content(b));
+        a = primitive(a);
+        b = primitive(b);
+        while (b.length > 0) {
+            BigInteger[] r = primitive(pseudoRemainder(a, b));
+            a = b;
+            b = r;
+        }
+        for (int i = 0; i < a.length; i++)
+            a[i] = a[i].multiply(content);
+        return fromBig(a);
+    }
+
+    /**
+     * Post-condizioni: restituisce this^e modulo m, cioè il resto di divmod, con
+     * l'overflow degli int come mul. Il quoziente di ogni divisione ha
+     * coefficenti interi se il coefficente di grado massimo di m è 1 o -1.
+     * Solleva NullPointerException se m è null, IllegalArgumentException se e è
+     * minore di 0 e ArithmeticException se m è il polinomio zero o se una delle
+     * divisioni non ha quoziente intero, come divmod
+     * <p>
+     * Correttezza: quadrati e prodotti successivi (dal bit più significativo di
+     * e), ognuno ridotto modulo m, quindi i polinomi intermedi hanno grado minore
+     * di 2 m.degree()
+     */
+    public Poly powMod(long e, Poly m) {
+        Objects.requireNonNull(m);
+        if (e < 0)
+            throw new IllegalArgumentException("L'esponente deve essere >= 0");
+        Poly base = divmod(m)[1];
+        Poly r = valueOf(1, 0).divmod(m)[1];
+        for (int bit = 63 - Long.numberOfLeadingZeros(e); bit >= 0; bit--) {
+            r = r.mul(r).divmod(m)[1];
+            if ((e >>> bit & 1) != 0)
+                r = r.mul(base).divmod(m)[1];
+        }
+        return r;
+    }
+
+    /**
+     * Post-condizioni: restituisce i coefficenti di p come BigInteger, un array
+     * vuoto se p è il polinomio zero
+     */
+    private static BigInteger[] big(int[] p) {
+        if (p.length == 1 && p[0] == 0)
+            return new BigInteger[0];
+        BigInteger[] r = new BigInteger[p.length];
+        for (int i = 0; i < p.length; i++)
+            r[i] = BigInteger.valueOf(p[i]);
+        return r;
+    }
+
+    /**
+     * Post-condizioni: restituisce il Poly con i coefficenti di p, che non è
+     * vuoto e non ha zeri finali. Solleva ArithmeticException se un coefficente
+     * non è rappresentabile come int
+     */
+    private static Poly fromBig(BigInteger[] p) {
+        int[] r = new int[p.length];
+        for (int i = 0; i < p.length; i++)
+            r[i] = p[i].intValueExact();
+        return valueOf(r);
+    }
+
+    /** Post-condizioni: restituisce il MCD dei coefficenti di p, che non è vuoto */
+    private static BigInteger content(BigInteger[] p) {
+        BigInteger g = BigInteger.ZERO;
+        for (BigInteger c : p)
+            g = g.gcd(c);
+        return g;
+    }
+
+    /** Post-condizioni: restituisce un nuovo array con i coefficenti opposti */
+    private static BigInteger[] negate(BigInteger[] p) {
+        BigInteger[] r = new BigInteger[p.length];
+        for (int i = 0; i < p.length; i++)
+            r[i] = p[i].negate();
+        return r;
+    }
+
+    /**
+     * Post-condizioni: restituisce p diviso per il suo contenuto, con il
+     * coefficente di grado massimo positivo; p se è vuoto
+     */
+    private static BigInteger[] primitive(BigInteger[] p) {
+        if (p.length == 0)
+            return p;
+        BigInteger g = content(p);
+        if (p[p.length - 1].signum() < 0)
+            g = g.negate();
+        BigInteger[] r = new BigInteger[p.length];
+        for (int i = 0; i < p.length; i++)
+            r[i] = p[i].divide(g);
+        return r;
+    }
+
+    /**
+     * Pre-condizioni: a e b non sono vuoti e non hanno zeri finali
+     * 
+     * Post-condizioni: restituisce un multiplo intero non nullo del resto della
+     * divisione di a per b, senza zeri finali, vuoto se il resto è 0
+     */
+    private static BigInteger[] pseudoRemainder(BigInteger[] a, BigInteger[] b) {
+        BigInteger[] r = a.clone();
+        int m = b.length - 1;
+        BigInteger lead = b[m];
+        int length = r.length;
+        while (length > m) {
+            // r = lead * r - r[top] x^(top - m) b annulla il coefficente di grado top
+            BigInteger top = r[length - 1];
+            int shift = length - 1 - m;
+            for (int i = 0; i < length - 1; i++)
+                r[i] = r[i].multiply(lead);
+            for (int j = 0; j < m; j++)
+                r[shift + j] = r[shift + j].subtract(top.multiply(b[j]));
+            length--;
+            while (length > 0 && r[length - 1].signum() == 0)
+                length--;
         }
-        return prodotto;
+        return Arrays.copyOf(r, length);
     }
 
     /**
@@ -232,10 +506,198 @@ public class Poly {
      */
     public Poly minus() {
         int[] opposite = new int[poly.length];
-        for (int i = 0; i < poly.length; i++) {
-            opposite[i] = -poly[i];
+        if (poly.length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSetAll(opposite, i -> -poly[i]);
+        } else {
+            for (int i = 0; i < poly.length; i++) {
+                opposite[i] = -poly[i];
+            }
+        }
+        return valueOf(opposite);
+    }
+
+    /**
+     * Post-condizioni: restituisce il valore di this in x, calcolato con la regola
+     * di Horner e con l'overflow degli int
+     * 
+     * Correttezza: poly[0] + x(poly[1] + x(poly[2] + ... + x poly[poly.length -
+     * 1])) = poly[0]x^0 + poly[1]x^1 + ... + poly[poly.length - 1]x^poly.length - 1
+     */
+    public int evaluate(int x) {
+        int value = 0;
+        for (int i = poly.length - 1; i >= 0; i--)
+            value = value * x + poly[i];
+        return value;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo array il cui elemento i-esimo è
+     * evaluate(xs[i]); se i passi totali sono molti i punti vengono divisi fra i
+     * thread del ForkJoinPool comune. Solleva NullPointerException se xs è null
+     */
+    public int[] evaluateMany(int[] xs) {
+        Objects.requireNonNull(xs);
+        int[] values = new int[xs.length];
+        if ((long) xs.length * poly.length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSetAll(values, i -> evaluate(xs[i]));
+        } else {
+            for (int i = 0; i < xs.length; i++)
+                values[i] = evaluate(xs[i]);
         }
-        return new Poly(opposite);
+        return values;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo array il cui elemento i-esimo è
+     * evaluate(points[i]), con l'overflow degli int come evaluateMany. Solleva
+     * NullPointerException se points è null
+     * <p>
+     * Per valori modulo un primo si può usare PolyField.evaluateAt
+     * 
+     * Correttezza: i conti sono modulo 2^32, che è l'overflow degli int. L'albero
+     * dei sottoprodotti ha in ogni nodo il prodotto dei (x - x_i) del suo
+     * intervallo di punti, che è monico: il resto modulo un nodo si calcola senza
+     * inversi e ha gli stessi valori del dividendo nei punti del nodo, dove il
+     * nodo vale 0. Riducendo il resto del padre modulo ogni figlio si arriva alle
+     * foglie (blocchi di al più LEAF_POINTS punti) con un polinomio di grado
+     * minore del blocco: O(M(n) log n) invece di n valutazioni con la regola di
+     * Horner
+     */
+    public int[] evaluateAt(int[] points) {
+        Objects.requireNonNull(points);
+        if (points.length <= LEAF_POINTS || poly.length <= LEAF_POINTS)
+            return evaluateMany(points);
+        int nodes = 1;
+        while (nodes * LEAF_POINTS < points.length)
+            nodes <<= 1;
+        int[][] tree = new int[2 * nodes][];
+        subproducts(tree, 1, 0, points.length, points);
+        int[] values = new int[points.length];
+        evaluateAt(remainder(poly, tree[1]), tree, 1, 0, points.length, points, values);
+        return values;
+    }
+
+    /**
+     * Effetti collaterali: scrive in tree[node] il prodotto dei (x - xs[i]) per
+     * i fra lo e hi - 1, e nei discendenti di node quelli dei loro intervalli
+     */
+    private static void subproducts(int[][] tree, int node, int lo, int hi, int[] xs) {
+        if (hi - lo <= LEAF_POINTS) {
+            int[] r = new int[hi - lo + 1];
+            r[0] = 1;
+            for (int i = lo; i < hi; i++) {
+                // r * (x - xs[i]), dal grado più alto per non sovrascrivere r
+                for (int j = i - lo + 1; j > 0; j--)
+                    r[j] = r[j - 1] - xs[i] * r[j];
+                r[0] = -xs[i] * r[0];
+            }
+            tree[node] = r;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        subproducts(tree, 2 * node, lo, mid, xs);
+        subproducts(tree, 2 * node + 1, mid, hi, xs);
+        tree[node] = PolyMultiplier.multiply(tree[2 * node], tree[2 * node + 1]);
+    }
+
+    /**
+     * Pre-condizioni: r ha grado minore di hi - lo
+     *
+     * Effetti collaterali: scrive in values[lo], ..., values[hi - 1] i valori di
+     * r nei punti del nodo
+     */
+    private static void evaluateAt(int[] r, int[][] tree, int node, int lo, int hi, int[] xs, int[] values) {
+        if (hi - lo <= LEAF_POINTS) {
+            for (int i = lo; i < hi; i++) {
+                int value = 0;
+                for (int j = r.length - 1; j >= 0; j--)
+                    value = value * xs[i] + r[j];
+                values[i] = value;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        evaluateAt(remainder(r, tree[2 * node]), tree, 2 * node, lo, mid, xs, values);
+        evaluateAt(remainder(r, tree[2 * node + 1]), tree, 2 * node + 1, mid, hi, xs, values);
+    }
+
+    /**
+     * Pre-condizioni: b è monico
+     *
+     * Post-condizioni: restituisce il resto della divisione di a per b modulo
+     * 2^32, lungo al più b.length - 1 e non accorciato
+     *
+     * Correttezza: con quoziente e divisore lunghi si calcola rev(q) = rev(a) *
+     * rev(b)^-1 mod x^k, con k la lunghezza del quoziente; rev(b) ha termine
+     * noto 1, quindi il suo inverso esiste anche modulo 2^32
+     */
+    private static int[] remainder(int[] a, int[] b) {
+        int m = b.length - 1;
+        int k = a.length - m;
+        if (k <= 0)
+            return a;
+        if (k < DIVISION_THRESHOLD || m < DIVISION_THRESHOLD) {
+            int[] r = a.clone();
+            for (int i = k - 1; i >= 0; i--) {
+                int f = r[i + m];
+                if (f != 0)
+                    for (int j = 0; j < m; j++)
+                        r[i + j] -= f * b[j];
+            }
+            return Arrays.copyOf(r, m);
+        }
+        int[] q = reverse(mulPrefix(reverse(a), inverse(reverse(b), k), k));
+        int[] bq = PolyMultiplier.multiply(b, q);
+        int[] r = new int[m];
+        for (int i = 0; i < m; i++)
+            r[i] = a[i] - bq[i];
+        return r;
+    }
+
+    /**
+     * Pre-condizioni: f[0] == 1
+     *
+     * Post-condizioni: restituisce g lungo k tale che f g = 1 mod x^k, modulo 2^32
+     *
+     * Correttezza: se f g = 1 mod x^l, allora g' = g (2 - f g) soddisfa f g' = 1
+     * mod x^2l (metodo di Newton), quindi partendo da g = 1 bastano log(k) passi
+     */
+    private static int[] inverse(int[] f, int k) {
+        int[] g = { 1 };
+        for (int l = 1; l < k;) {
+            l = Math.min(2 * l, k);
+            int[] t = mulPrefix(f, g, l);
+            for (int i = 0; i < l; i++)
+                t[i] = -t[i];
+            t[0] += 2;
+            g = mulPrefix(g, t, l);
+        }
+        return g;
+    }
+
+    /** Post-condizioni: restituisce a * b mod x^k modulo 2^32, lungo k */
+    private static int[] mulPrefix(int[] a, int[] b, int k) {
+        int[] r = PolyMultiplier.multiply(Arrays.copyOf(a, Math.min(a.length, k)),
+                Arrays.copyOf(b, Math.min(b.length, k)));
+        return Arrays.copyOf(r, k);
+    }
+
+    /** Post-condizioni: restituisce un nuovo array con gli elementi di a al contrario */
+    private static int[] reverse(int[] a) {
+        int[] r = new int[a.length];
+        for (int i = 0; i < a.length; i++)
+            r[i] = a[a.length - 1 - i];
+        return r;
+    }
+
+    /**
+     * Post-condizioni: restituisce i primi length elementi di p senza gli zeri
+     * finali, lasciandone almeno uno
+     */
+    private static int[] trim(int[] p, int length) {
+        while (length > 1 && p[length - 1] == 0)
+            length--;
+        return length == p.length ? p : Arrays.copyOf(p, length);
     }
 
     /**
@@ -0,0 +1,554 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * OVERVIEW: Le istanze di questa classe rappresentano l'aritmetica dei
+ * polinomi con coefficienti nel campo Z/pZ, con p primo; PolyField è
+ * immutabile. I polinomi in ingresso sono Poly qualsiasi, i cui coefficienti
+ * vengono ridotti modulo p; quelli restituiti sono Poly con coefficienti fra 0
+ * e p - 1, quindi le operazioni ripetute non crescono mai oltre p. Un tipico
+ * PolyField è Z/998244353Z, in cui (x + 1)^2 mod (x^2) = 2x + 1.
+ * <p>
+ * Il prodotto usa PolyMultiplier.multiplyMod. La divisione è quella scolastica
+ * per quozienti o divisori corti, altrimenti calcola l'inverso del divisore
+ * rovesciato con il metodo di Newton e costa come un prodotto. Il massimo comun
+ * divisore usa l'algoritmo half-GCD, che salta metà dei passi di Euclide con
+ * una matrice calcolata ricorsivamente sulle metà alte dei polinomi. La
+ * valutazione in molti punti e l'interpolazione usano l'albero dei
+ * sottoprodotti dei (x - x_i).
+ * <p>
+ * All'interno i polinomi sono array di coefficienti dal grado 0 senza zeri
+ * finali; il polinomio zero è l'array vuoto.
+ * <p>
+ * Funzione di astrazione: AF(p) = Z/pZ[x]
+ * <p>
+ * Invariante di rappresentazione: p è primo
+ */
+public final class PolyField {
+
+    /** Sotto questa lunghezza del quoziente o del divisore la divisione è scolastica */
+    static final int DIVISION_THRESHOLD = 128;
+
+    /** Sotto questo grado half-GCD esegue direttamente i passi di Euclide */
+    static final int HGCD_THRESHOLD = 64;
+
+    /** Numero massimo di punti nelle foglie dell'albero dei sottoprodotti */
+    static final int LEAF_POINTS = 32;
+
+    private static final int[] ZERO = new int[0];
+
+    private final int p;
+
+    /**
+     * Post-condizioni: inizializza un nuovo PolyField con modulo p. Solleva
+     * IllegalArgumentException se p non è un numero primo
+     */
+    public PolyField(int p) {
+        if (p < 2 || !BigInteger.valueOf(p).isProbablePrime(50))
+            throw new IllegalArgumentException("Il modulo deve essere un numero primo");
+        this.p = p;
+    }
+
+    /** Post-condizioni: restituisce il modulo di this */
+    public int modulus() {
+        return p;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo Poly con i coefficienti di a ridotti
+     * fra 0 e p - 1. Solleva NullPointerException se a è null
+     */
+    public Poly reduce(Poly a) {
+        return toPoly(of(a));
+    }
+
+    /**
+     * Post-condizioni: restituisce la somma di a e b modulo p. Solleva
+     * NullPointerException se a o b sono null
+     */
+    public Poly add(Poly a, Poly b) {
+        return toPoly(add(of(a), of(b)));
+    }
+
+    /**
+     * Post-condizioni: restituisce la differenza fra a e b modulo p. Solleva
+     * NullPointerException se a o b sono null
+     */
+    public Poly sub(Poly a, Poly b) {
+        return toPoly(sub(of(a), of(b)));
+    }
+
+    /**
+     * Post-condizioni: restituisce il prodotto di a e b modulo p. Solleva
+     * NullPointerException se a o b sono null
+     */
+    public Poly mul(Poly a, Poly b) {
+        return toPoly(mul(of(a), of(b)));
+    }
+
+    /**
+     * Post-condizioni: restituisce un array con il quoziente e il resto della
+     * divisione di a per b modulo p: a = quoziente * b + resto, con il grado del
+     * resto minore di quello di b oppure resto 0. Solleva NullPointerException se a
+     * o b sono null e ArithmeticException se b è 0 modulo p
+     */
+    public Poly[] divmod(Poly a, Poly b) {
+        int[] divisor = of(b);
+        if (divisor.length == 0)
+            throw new ArithmeticException("Divisione per il polinomio zero");
+        int[][] qr = divmod(of(a), divisor);
+        return new Poly[] { toPoly(qr[0]), toPoly(qr[1]) };
+    }
+
+    /**
+     * Post-condizioni: restituisce il massimo comun divisore monico di a e b
+     * modulo p, il polinomio zero se a e b sono entrambi 0. Solleva
+     * NullPointerException se a o b sono null
+     *
+     * Correttezza: ogni matrice di half-GCD è un prodotto di passi di Euclide
+     * [[0, 1], [1, -q]], che hanno determinante -1, quindi la coppia trasformata
+     * ha lo stesso massimo comun divisore; ogni giro del ciclo abbassa il grado
+     * di b, e quando b è 0 il massimo comun divisore è a reso monico
+     */
+    public Poly gcd(Poly a, Poly b) {
+        int[] x = of(a), y = of(b);
+        if (x.length < y.length) {
+            int[] t = x;
+            x = y;
+            y = t;
+        }
+        while (y.length > 0) {
+            int[] r = divmod(x, y)[1];
+            x = y;
+            y = r;
+            if (y.length > 0 && x.length > HGCD_THRESHOLD) {
+                int[][] m = halfGcd(x, y);
+                int[] nx = add(mul(m[0], x), mul(m[1], y));
+                y = add(mul(m[2], x), mul(m[3], y));
+                x = nx;
+            }
+        }
+        return toPoly(x.length == 0 ? x : scale(x, inverse(x[x.length - 1])));
+    }
+
+    /**
+     * Post-condizioni: restituisce a^e modulo m, con i coefficienti modulo p.
+     * Solleva NullPointerException se a o m sono null, IllegalArgumentException
+     * se e è minore di 0 e ArithmeticException se m è 0 modulo p
+     *
+     * Correttezza: quadrati e prodotti successivi (dal bit più significativo di
+     * e), ognuno ridotto modulo m, quindi i polinomi intermedi hanno grado minore
+     * di 2 deg(m)
+     */
+    public Poly powMod(Poly a, long e, Poly m) {
+        if (e < 0)
+            throw new IllegalArgumentException("L'esponente deve essere >= 0");
+        int[] mod = of(m);
+        if (mod.length == 0)
+            throw new ArithmeticException("Modulo uguale al polinomio zero");
+        int[] base = divmod(of(a), mod)[1];
+        int[] r = divmod(new int[] { 1 }, mod)[1];
+        for (int bit = 63 - Long.numberOfLeadingZeros(e); bit >= 0; bit--) {
+            r = divmod(mul(r, r), mod)[1];
+            if ((e >>> bit & 1) != 0)
+                r = divmod(mul(r, base), mod)[1];
+        }
+        return toPoly(r);
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo array il cui elemento i-esimo è il
+     * valore di a in points[i], modulo p e fra 0 e p - 1. Solleva
+     * NullPointerException se a o points sono null
+     *
+     * Correttezza: a(x_i) = a mod (x - x_i). L'albero dei sottoprodotti ha in
+     * ogni nodo il prodotto dei (x - x_i) del suo intervallo di punti, quindi
+     * riducendo il resto del padre modulo ogni figlio si arriva alle foglie
+     * (blocchi di al più LEAF_POINTS punti) con un polinomio di grado minore del
+     * blocco, che ha gli stessi valori di a nei punti del blocco: O(M(n) log n)
+     * invece di n valutazioni con la regola di Horner
+     */
+    public int[] evaluateAt(Poly a, int[] points) {
+        int[] c = of(a);
+        int[] xs = reduce(points);
+        int[] values = new int[xs.length];
+        if (xs.length <= LEAF_POINTS || c.length <= LEAF_POINTS) {
+            for (int i = 0; i < xs.length; i++)
+                values[i] = horner(c, xs[i]);
+            return values;
+        }
+        int[][] tree = subproductTree(xs);
+        evaluate(divmod(c, tree[1])[1], tree, 1, 0, xs.length, xs, values);
+        return values;
+    }
+
+    /**
+     * Post-condizioni: restituisce il polinomio di grado minore di points.length
+     * che in points[i] vale values[i] modulo p, con coefficienti fra 0 e p - 1.
+     * Solleva NullPointerException se points o values sono null,
+     * IllegalArgumentException se hanno lunghezze diverse o se due punti sono
+     * uguali modulo p
+     *
+     * Correttezza: con M il prodotto di tutti i (x - x_i) il polinomio è la somma
+     * di y_i / M'(x_i) * M / (x - x_i) (Lagrange). I valori M'(x_i) si calcolano
+     * con evaluateAt sullo stesso albero e sono 0 solo se x_i è ripetuto; le
+     * somme si combinano dal basso: per un nodo con figli S e D vale comb = comb_S
+     * * M_D + comb_D * M_S
+     */
+    public Poly interpolate(int[] points, int[] values) {
+        Objects.requireNonNull(values);
+        int[] xs = reduce(points);
+        if (xs.length != values.length)
+            throw new IllegalArgumentException("points e values devono avere la stessa lunghezza");
+        if (xs.length == 0)
+            return Poly.valueOf(0, 0);
+        int[][] tree = subproductTree(xs);
+        int[] m = tree[1];
+        int[] derivative = new int[m.length - 1];
+        for (int i = 1; i < m.length; i++)
+            derivative[i - 1] = (int) ((long) m[i] * i % p);
+        int[] w = new int[xs.length];
+        if (xs.length <= LEAF_POINTS) {
+            for (int i = 0; i < xs.length; i++)
+                w[i] = horner(derivative, xs[i]);
+        } else {
+            evaluate(trim(derivative), tree, 1, 0, xs.length, xs, w);
+        }
+        int[] weights = new int[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            if (w[i] == 0)
+                throw new IllegalArgumentException("I punti devono essere distinti modulo p");
+            weights[i] = (int) (Math.floorMod(values[i], p) * inverse(w[i]) % p);
+        }
+        return toPoly(combine(tree, 1, 0, xs.length, xs, weights));
+    }
+
+    @Override
+    public String toString() {
+        return "PolyField: Z/" + p + "Z[x]";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof PolyField && ((PolyField) obj).p == p;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(p);
+    }
+
+    /**
+     * Post-condizioni: restituisce l'albero dei sottoprodotti di xs come array di
+     * nodi: il nodo 1 copre tutti i punti, i figli del nodo k sono 2k e 2k + 1 e
+     * dividono a metà il suo intervallo, che smette di essere diviso quando ha al
+     * più LEAF_POINTS punti; ogni nodo contiene il prodotto dei (x - x_i) del suo
+     * intervallo
+     */
+    private int[][] subproductTree(int[] xs) {
+        int nodes = 1;
+        while (nodes * LEAF_POINTS < xs.length)
+            nodes <<= 1;
+        int[][] tree = new int[2 * nodes][];
+        build(tree, 1, 0, xs.length, xs);
+        return tree;
+    }
+
+    private void build(int[][] tree, int node, int lo, int hi, int[] xs) {
+        if (hi - lo <= LEAF_POINTS) {
+            int[] r = { 1 };
+            for (int i = lo; i < hi; i++)
+                r = mulLinear(r, xs[i]);
+            tree[node] = r;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        build(tree, 2 * node, lo, mid, xs);
+        build(tree, 2 * node + 1, mid, hi, xs);
+        tree[node] = mul(tree[2 * node], tree[2 * node + 1]);
+    }
+
+    /**
+     * Pre-condizioni: r ha grado minore di hi - lo
+     *
+     * Effetti collaterali: scrive in values[lo], ..., values[hi - 1] i valori di
+     * r nei punti del nodo
+     */
+    private void evaluate(int[] r, int[][] tree, int node, int lo, int hi, int[] xs, int[] values) {
+        if (hi - lo <= LEAF_POINTS) {
+            for (int i = lo; i < hi; i++)
+                values[i] = horner(r, xs[i]);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        evaluate(divmod(r, tree[2 * node])[1], tree, 2 * node, lo, mid, xs, values);
+        evaluate(divmod(r, tree[2 * node + 1])[1], tree, 2 * node + 1, mid, hi, xs, values);
+    }
+
+    /**
+     * Post-condizioni: restituisce la somma di weights[i] * tree[node] / (x -
+     * xs[i]) per i fra lo e hi - 1
+     */
+    private int[] combine(int[][] tree, int node, int lo, int hi, int[] xs, int[] weights) {
+        if (hi - lo <= LEAF_POINTS) {
+            long[] r = new long[hi - lo];
+            for (int i = lo; i < hi; i++) {
+                // Divisione sintetica di tree[node] per (x - xs[i])
+                int[] m = tree[node];
+                long carry = 0;
+                for (int j = m.length - 1; j > 0; j--) {
+                    carry = (carry * xs[i] + m[j]) % p;
+                    r[j - 1] = (r[j - 1] + carry * weights[i]) % p;
+                }
+            }
+            int[] out = new int[r.length];
+            for (int i = 0; i < r.length; i++)
+                out[i] = (int) r[i];
+            return trim(out);
+        }
+        int mid = (lo + hi) >>> 1;
+        int[] left = combine(tree, 2 * node, lo, mid, xs, weights);
+        int[] right = combine(tree, 2 * node + 1, mid, hi, xs, weights);
+        return add(mul(left, tree[2 * node + 1]), mul(right, tree[2 * node]));
+    }
+
+    /** Post-condizioni: restituisce r * (x - c) */
+    private int[] mulLinear(int[] r, int c) {
+        int[] out = new int[r.length + 1];
+        long minus = p - c;
+        for (int i = 0; i < r.length; i++) {
+            out[i + 1] = (int) ((out[i + 1] + (long) r[i]) % p);
+            out[i] = (int) ((out[i] + minus * r[i]) % p);
+        }
+        return out;
+    }
+
+    /** Post-condizioni: restituisce il valore di c in x modulo p, regola di Horner */
+    private int horner(int[] c, int x) {
+        long value = 0;
+        for (int i = c.length - 1; i >= 0; i--)
+            value = (value * x + c[i]) % p;
+        return (int) value;
+    }
+
+    /** Post-condizioni: restituisce un nuovo array con i punti ridotti modulo p */
+    private int[] reduce(int[] points) {
+        Objects.requireNonNull(points);
+        int[] xs = new int[points.length];
+        for (int i = 0; i < xs.length; i++)
+            xs[i] = Math.floorMod(points[i], p);
+        return xs;
+    }
+
+    /**
+     * Pre-condizioni: deg(a) > deg(b), b non è zero
+     *
+     * Post-condizioni: restituisce la matrice M = {m00, m01, m10, m11}, prodotto
+     * di passi di Euclide, tale che (c, d) = M (a, b) ha deg(c) >= k > deg(d) con
+     * k = ceil(deg(a) / 2)
+     *
+     * Correttezza: i quozienti dei primi passi di Euclide dipendono solo dai
+     * coefficienti alti, quindi la prima chiamata ricorsiva sulle metà alte
+     * (divise per x^k) porta (a, b) sotto grado 3k / 2; dopo un passo di Euclide
+     * la seconda chiamata, sulle parti alte divise per x^(2k - deg(d)), porta il
+     * resto sotto grado k
+     */
+    private int[][] halfGcd(int[] a, int[] b) {
+        int k = (degree(a) + 1) / 2;
+        if (degree(b) < k)
+            return identity();
+        if (degree(a) < HGCD_THRESHOLD) {
+            int[][] m = identity();
+            while (degree(b) >= k) {
+                int[][] qr = divmod(a, b);
+                m = step(qr[0], m);
+                a = b;
+                b = qr[1];
+            }
+            return m;
+        }
+        int[][] r = halfGcd(shift(a, k), shift(b, k));
+        int[] c = add(mul(r[0], a), mul(r[1], b));
+        int[] d = add(mul(r[2], a), mul(r[3], b));
+        if (degree(d) < k)
+            return r;
+        int[][] qr = divmod(c, d);
+        int[][] m = step(qr[0], r);
+        int[] e = qr[1];
+        if (degree(e) < k)
+            return m;
+        int l = 2 * k - degree(d);
+        int[][] s = halfGcd(shift(d, l), shift(e, l));
+        return product(s, m);
+    }
+
+    private static int[][] identity() {
+        return new int[][] { { 1 }, ZERO, ZERO, { 1 } };
+    }
+
+    /** Post-condizioni: restituisce [[0, 1], [1, -q]] * m */
+    private int[][] step(int[] q, int[][] m) {
+        return new int[][] { m[2], m[3], sub(m[0], mul(q, m[2])), sub(m[1], mul(q, m[3])) };
+    }
+
+    /** Post-condizioni: restituisce il prodotto delle matrici s e m */
+    private int[][] product(int[][] s, int[][] m) {
+        return new int[][] { add(mul(s[0], m[0]), mul(s[1], m[2])), add(mul(s[0], m[1]), mul(s[1], m[3])),
+                add(mul(s[2], m[0]), mul(s[3], m[2])), add(mul(s[2], m[1]), mul(s[3], m[3])) };
+    }
+
+    /**
+     * Pre-condizioni: b non è zero
+     *
+     * Post-condizioni: restituisce {quoziente, resto} della divisione di a per b
+     */
+    private int[][] divmod(int[] a, int[] b) {
+        int n = a.length, m = b.length;
+        if (n < m)
+            return new int[][] { ZERO, a };
+        int k = n - m + 1;
+        if (k < DIVISION_THRESHOLD || m < DIVISION_THRESHOLD)
+            return schoolbook(a, b);
+        // rev(q) = rev(a) * rev(b)^-1 mod x^k
+        int[] q = reverse(mulPrefix(reverse(a), inverse(reverse(b), k), k), k);
+        int[] r = sub(a, mul(b, q));
+        return new int[][] { q, r };
+    }
+
+    /** Post-condizioni: come divmod, con la divisione scolastica */
+    private int[][] schoolbook(int[] a, int[] b) {
+        int n = a.length, m = b.length;
+        long[] r = new long[n];
+        for (int i = 0; i < n; i++)
+            r[i] = a[i];
+        int[] q = new int[n - m + 1];
+        long inv = inverse(b[m - 1]);
+        for (int i = q.length - 1; i >= 0; i--) {
+            long f = r[i + m - 1] % p * inv % p;
+            q[i] = (int) f;
+            if (f != 0)
+                for (int j = 0; j < m; j++)
+                    r[i + j] = (r[i + j] + (p - f) * b[j]) % p;
+        }
+        int[] rest = new int[m - 1];
+        for (int i = 0; i < rest.length; i++)
+            rest[i] = (int) r[i];
+        return new int[][] { trim(q), trim(rest) };
+    }
+
+    /**
+     * Pre-condizioni: f[0] != 0
+     *
+     * Post-condizioni: restituisce g di grado minore di k tale che f g = 1 mod x^k
+     *
+     * Correttezza: se f g = 1 mod x^l, allora g' = g (2 - f g) soddisfa f g' = 1
+     * mod x^2l (metodo di Newton), quindi partendo da g = f[0]^-1 bastano log(k)
+     * passi
+     */
+    private int[] inverse(int[] f, int k) {
+        int[] g = { (int) inverse(f[0]) };
+        for (int l = 1; l < k;) {
+            l = Math.min(2 * l, k);
+            int[] fg = mulPrefix(prefix(f, l), g, l);
+            int[] t = sub(new int[] { 2 }, fg);
+            g = mulPrefix(g, t, l);
+        }
+        return g;
+    }
+
+    private int[] add(int[] a, int[] b) {
+        int[] r = Arrays.copyOf(a.length >= b.length ? a : b, Math.max(a.length, b.length));
+        int[] s = a.length >= b.length ? b : a;
+        for (int i = 0; i < s.length; i++) {
+            int v = r[i] + s[i] - p;
+            r[i] = v < 0 ? v + p : v;
+        }
+        return trim(r);
+    }
+
+    private int[] sub(int[] a, int[] b) {
+        int[] r = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < b.length; i++) {
+            int v = r[i] - b[i];
+            r[i] = v < 0 ? v + p : v;
+        }
+        return trim(r);
+    }
+
+    private int[] mul(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0)
+            return ZERO;
+        return trim(PolyMultiplier.multiplyMod(a, b, p));
+    }
+
+    /** Post-condizioni: restituisce a * b mod x^k */
+    private int[] mulPrefix(int[] a, int[] b, int k) {
+        return prefix(mul(prefix(a, k), prefix(b, k)), k);
+    }
+
+    private int[] scale(int[] a, long c) {
+        int[] r = new int[a.length];
+        for (int i = 0; i < a.length; i++)
+            r[i] = (int) (a[i] * c % p);
+        return r;
+    }
+
+    /** Post-condizioni: restituisce c^-1 modulo p, c diverso da 0 */
+    private long inverse(long c) {
+        long r = 1, base = c % p;
+        for (long e = p - 2; e > 0; e >>= 1) {
+            if ((e & 1) != 0)
+                r = r * base % p;
+            base = base * base % p;
+        }
+        return r;
+    }
+
+    /** Post-condizioni: restituisce i coefficienti di a ridotti modulo p */
+    private int[] of(Poly a) {
+        Objects.requireNonNull(a);
+        int[] r = new int[a.degree() + 1];
+        for (int i = 0; i < r.length; i++)
+            r[i] = Math.floorMod(a.coeff(i), p);
+        return trim(r);
+    }
+
+    private static Poly toPoly(int[] a) {
+        return a.length == 0 ? Poly.valueOf(0, 0) : Poly.valueOf(a);
+    }
+
+    /** Post-condizioni: restituisce il grado di a, -1 per il polinomio zero */
+    private static int degree(int[] a) {
+        return a.length - 1;
+    }
+
+    /** Post-condizioni: restituisce a diviso per x^k, senza i termini di grado minore */
+    private static int[] shift(int[] a, int k) {
+        return a.length <= k ? ZERO : Arrays.copyOfRange(a, k, a.length);
+    }
+
+    /** Post-condizioni: restituisce a mod x^k */
+    private static int[] prefix(int[] a, int k) {
+        return a.length <= k ? a : trim(Arrays.copyOf(a, k));
+    }
+
+    /** Post-condizioni: restituisce i primi k coefficienti di a in ordine inverso */
+    private static int[] reverse(int[] a, int k) {
+        int[] r = new int[k];
+        for (int i = 0; i < k && i < a.length; i++)
+            r[k - 1 - i] = a[i];
+        return trim(r);
+    }
+
+    private static int[] reverse(int[] a) {
+        return reverse(a, a.length);
+    }
+
+    private static int[] trim(int[] a) {
+        int length = a.length;
+        while (length > 0 && a[length - 1] == 0)
+            length--;
+        return length == a.length ? a : Arrays.copyOf(a, length);
+    }
+}
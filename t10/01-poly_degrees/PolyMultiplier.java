@@ -0,0 +1,415 @@
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * OVERVIEW: Moltiplicazione di polinomi densi, rappresentati come array di
+ * coefficienti int dal grado 0 in su. Il prodotto è calcolato modulo 2^32,
+ * cioè con lo stesso overflow degli int della convoluzione diretta, e
+ * l'algoritmo viene scelto in base alle lunghezze: prodotto scolastico per
+ * polinomi corti, Karatsuba per quelli medi e trasformata numerica (NTT) per
+ * quelli lunghi.
+ *
+ * Karatsuba usa solo somme, sottrazioni e prodotti, quindi con gli int è
+ * esatto modulo 2^32. La NTT calcola la convoluzione modulo tre primi
+ * (998244353, 167772161, 469762049, tutti con radice primitiva 3): il loro
+ * prodotto P supera 2^85, più del doppio del valore assoluto di ogni
+ * coefficiente del prodotto esatto, che ricostruito col teorema cinese del
+ * resto (algoritmo di Garner) e riportato fra -P/2 e P/2 dà i 32 bit bassi
+ * corretti.
+ *
+ * multiplyMod calcola invece il prodotto con i coefficienti modulo un primo p
+ * (per PolyField), con le stesse tre convoluzioni ridotte modulo p invece che
+ * modulo 2^32. multiplyExact restituisce i coefficienti esatti del prodotto,
+ * ricostruiti su 128 bit (per WidePoly).
+ *
+ * Sui fattori lunghi il lavoro viene diviso fra i thread del ForkJoinPool
+ * comune: i tre sottoprodotti di Karatsuba e le tre convoluzioni della NTT
+ * sono task indipendenti, che scrivono in array distinti.
+ */
+final class PolyMultiplier {
+
+    /** Sotto questa lunghezza del fattore più corto si usa il prodotto scolastico */
+    static final int KARATSUBA_THRESHOLD = 64;
+
+    /** Da questa lunghezza del fattore più corto si usa la NTT */
+    static final int NTT_THRESHOLD = 4096;
+
+    /** Da questa lunghezza del fattore più corto multiplyMod usa la NTT */
+    static final int MOD_NTT_THRESHOLD = 64;
+
+    /** Da questa lunghezza i sottoprodotti di Karatsuba diventano task paralleli */
+    static final int PARALLEL_THRESHOLD = 1024;
+
+    /** Lunghezza massima del prodotto calcolabile con la NTT (2^23 per P1) */
+    static final int MAX_NTT_LENGTH = 1 << 23;
+
+    private static final long P1 = 998244353, P2 = 167772161, P3 = 469762049;
+    private static final long ROOT = 3;
+
+    /** P1^-1 mod P2 */
+    private static final long INV_P1_MOD_P2 = pow(P1 % P2, P2 - 2, P2);
+
+    /** (P1 * P2)^-1 mod P3 */
+    private static final long INV_P1P2_MOD_P3 = pow(P1 * P2 % P3, P3 - 2, P3);
+
+    private static final long P1P2 = P1 * P2;
+
+    /** I 64 bit bassi di P1 * P2 * P3 */
+    private static final long P_LOW = P1P2 * P3;
+
+    /** I 64 bit alti di P1 * P2 * P3 */
+    private static final long P_HIGH = Math.multiplyHigh(P1P2, P3);
+
+    private PolyMultiplier() {
+    }
+
+    /**
+     * Pre-condizioni: a e b non sono null e non sono vuoti
+     *
+     * Post-condizioni: restituisce un nuovo array di lunghezza a.length +
+     * b.length - 1 con i coefficienti del prodotto di a e b modulo 2^32, non
+     * accorciato
+     */
+    static int[] multiply(int[] a, int[] b) {
+        int shorter = Math.min(a.length, b.length);
+        int length = a.length + b.length - 1;
+        if (shorter >= NTT_THRESHOLD && length <= MAX_NTT_LENGTH)
+            return ntt(a, b);
+        int[] r = new int[length];
+        multiply(a, 0, a.length, b, 0, b.length, r, 0);
+        return r;
+    }
+
+    /**
+     * Post-condizioni: somma a r[ro], ..., r[ro+n+m-2] il prodotto di a[ao],
+     * ..., a[ao+n-1] e b[bo], ..., b[bo+m-1]. Se i fattori hanno lunghezze
+     * diverse il più lungo viene diviso in blocchi lunghi quanto l'altro, così
+     * Karatsuba lavora su fattori della stessa lunghezza
+     */
+    private static void multiply(int[] a, int ao, int n, int[] b, int bo, int m, int[] r, int ro) {
+        if (n < m) {
+            multiply(b, bo, m, a, ao, n, r, ro);
+            return;
+        }
+        if (m < KARATSUBA_THRESHOLD) {
+            schoolbook(a, ao, n, b, bo, m, r, ro);
+            return;
+        }
+        int i = 0;
+        for (; i + m <= n; i += m)
+            karatsuba(a, ao + i, b, bo, m, r, ro + i);
+        if (i < n)
+            multiply(a, ao + i, n - i, b, bo, m, r, ro + i);
+    }
+
+    /** Post-condizioni: come multiply, con la convoluzione diretta */
+    private static void schoolbook(int[] a, int ao, int n, int[] b, int bo, int m, int[] r, int ro) {
+        for (int i = 0; i < n; i++) {
+            int c = a[ao + i];
+            if (c == 0)
+                continue;
+            for (int j = 0; j < m; j++)
+                r[ro + i + j] += c * b[bo + j];
+        }
+    }
+
+    /**
+     * Post-condizioni: somma a r[ro], ..., r[ro+2n-2] il prodotto di a[ao],
+     * ..., a[ao+n-1] e b[bo], ..., b[bo+n-1]. Con a = a0 + a1 x^h e b = b0 + b1
+     * x^h il prodotto è z0 + (z1 - z0 - z2) x^h + z2 x^2h, dove z0 = a0 b0, z2 =
+     * a1 b1 e z1 = (a0 + a1)(b0 + b1): tre prodotti di metà lunghezza invece di
+     * quattro
+     */
+    private static void karatsuba(int[] a, int ao, int[] b, int bo, int n, int[] r, int ro) {
+        if (n < KARATSUBA_THRESHOLD) {
+            schoolbook(a, ao, n, b, bo, n, r, ro);
+            return;
+        }
+        int h = n / 2;
+        int k = n - h;
+
+        int[] z0 = new int[2 * h - 1];
+        int[] z2 = new int[2 * k - 1];
+        int[] sa = new int[k];
+        int[] sb = new int[k];
+        System.arraycopy(a, ao + h, sa, 0, k);
+        System.arraycopy(b, bo + h, sb, 0, k);
+        for (int i = 0; i < h; i++) {
+            sa[i] += a[ao + i];
+            sb[i] += b[bo + i];
+        }
+        int[] z1 = new int[2 * k - 1];
+
+        if (n >= PARALLEL_THRESHOLD) {
+            ForkJoinTask.invokeAll(new KaratsubaTask(a, ao, b, bo, h, z0),
+                    new KaratsubaTask(a, ao + h, b, bo + h, k, z2), new KaratsubaTask(sa, 0, sb, 0, k, z1));
+        } else {
+            karatsuba(a, ao, b, bo, h, z0, 0);
+            karatsuba(a, ao + h, b, bo + h, k, z2, 0);
+            karatsuba(sa, 0, sb, 0, k, z1, 0);
+        }
+
+        for (int i = 0; i < z0.length; i++) {
+            r[ro + i] += z0[i];
+            z1[i] -= z0[i];
+        }
+        for (int i = 0; i < z2.length; i++) {
+            r[ro + 2 * h + i] += z2[i];
+            z1[i] -= z2[i];
+        }
+        for (int i = 0; i < z1.length; i++)
+            r[ro + h + i] += z1[i];
+    }
+
+    /**
+     * Pre-condizioni: a.length + b.length - 1 <= MAX_NTT_LENGTH
+     *
+     * Post-condizioni: come multiply(a, b), calcolando la convoluzione modulo P1,
+     * P2 e P3 e ricostruendo i coefficienti col teorema cinese del resto
+     */
+    private static int[] ntt(int[] a, int[] b) {
+        long[][] residues = convolutions(a, b);
+        int[] r = new int[a.length + b.length - 1];
+        IntStream.range(0, r.length).parallel()
+                .forEach(i -> r[i] = garner(residues[0][i], residues[1][i], residues[2][i]));
+        return r;
+    }
+
+    /**
+     * Pre-condizioni: a e b non sono vuoti, a.length + b.length - 1 <=
+     * MAX_NTT_LENGTH
+     *
+     * Post-condizioni: restituisce due nuovi array high e low di lunghezza
+     * a.length + b.length - 1: il coefficiente esatto di grado i del prodotto di
+     * a e b è l'intero a 128 bit in complemento a due con i 64 bit alti in
+     * high[i] e quelli bassi in low[i]. Ogni coefficiente è una somma di al più
+     * 2^22 prodotti di due int, quindi in valore assoluto è al più 2^84 < P/2 e
+     * la NTT sui tre primi lo ricostruisce esattamente
+     */
+    static long[][] multiplyExact(int[] a, int[] b) {
+        long[][] residues = convolutions(a, b);
+        long[] high = new long[a.length + b.length - 1];
+        long[] low = new long[high.length];
+        IntStream.range(0, high.length).parallel()
+                .forEach(i -> garnerExact(residues[0][i], residues[1][i], residues[2][i], high, low, i));
+        return new long[][] { high, low };
+    }
+
+    /**
+     * Pre-condizioni: a e b non sono vuoti, i loro coefficienti sono compresi fra
+     * 0 e p - 1, 2 <= p
+     *
+     * Post-condizioni: restituisce un nuovo array di lunghezza a.length +
+     * b.length - 1 con i coefficienti del prodotto di a e b modulo p, compresi
+     * fra 0 e p - 1, non accorciato. Sopra MOD_NTT_THRESHOLD usa la NTT: modulo p
+     * stesso se p è uno dei tre primi, altrimenti sui tre primi, dato che ogni
+     * coefficiente del prodotto esatto è minore di 2^23 * 2^62 <
+     * P1 P2 P3, quindi Garner lo ricostruisce senza ambiguità di segno
+     */
+    static int[] multiplyMod(int[] a, int[] b, int p) {
+        int shorter = Math.min(a.length, b.length);
+        int length = a.length + b.length - 1;
+        int[] r = new int[length];
+        if (shorter >= MOD_NTT_THRESHOLD && length <= MAX_NTT_LENGTH) {
+            if (p == P1 || p == P2 || p == P3) {
+                // p ha radici dell'unità di ordine 2^23: basta una convoluzione
+                int size = Integer.highestOneBit(length - 1) << 1;
+                long[] c = convolution(a, b, size, p);
+                for (int i = 0; i < length; i++)
+                    r[i] = (int) c[i];
+                return r;
+            }
+            long[][] residues = convolutions(a, b);
+            long p1p2 = P1P2 % p;
+            IntStream.range(0, length).parallel()
+                    .forEach(i -> r[i] = garnerMod(residues[0][i], residues[1][i], residues[2][i], p, p1p2));
+            return r;
+        }
+        long[] acc = new long[length];
+        for (int i = 0; i < a.length; i++) {
+            long c = a[i];
+            if (c == 0)
+                continue;
+            for (int j = 0; j < b.length; j++)
+                acc[i + j] = (acc[i + j] + c * b[j]) % p;
+        }
+        for (int i = 0; i < length; i++)
+            r[i] = (int) acc[i];
+        return r;
+    }
+
+    /**
+     * Post-condizioni: restituisce le convoluzioni di a e b modulo P1, P2 e P3,
+     * calcolate in parallelo, in array lunghi almeno a.length + b.length - 1
+     */
+    private static long[][] convolutions(int[] a, int[] b) {
+        int length = a.length + b.length - 1;
+        int size = length == 1 ? 1 : Integer.highestOneBit(length - 1) << 1;
+
+        ForkJoinTask<long[]> t2 = ForkJoinTask.adapt(() -> convolution(a, b, size, P2)).fork();
+        ForkJoinTask<long[]> t3 = ForkJoinTask.adapt(() -> convolution(a, b, size, P3)).fork();
+        long[] r1 = convolution(a, b, size, P1);
+        return new long[][] { r1, t2.join(), t3.join() };
+    }
+
+    /**
+     * Effetti collaterali: high[i] e low[i] sono modificati
+     *
+     * Post-condizioni: scrive in high[i] e low[i] i 64 bit alti e bassi
+     * dell'intero x fra -P/2 e P/2 tale che x mod P1 = r1, x mod P2 = r2 e x mod
+     * P3 = r3
+     */
+    private static void garnerExact(long r1, long r2, long r3, long[] high, long[] low, int i) {
+        long k2 = (r2 - r1 % P2 + P2) % P2 * INV_P1_MOD_P2 % P2;
+        long x12 = r1 + P1 * k2;
+        long k3 = (r3 - x12 % P3 + P3) % P3 * INV_P1P2_MOD_P3 % P3;
+        // x = x12 + P1 P2 k3 su 128 bit: tutti i termini sono positivi
+        long lo = P1P2 * k3 + x12;
+        long hi = Math.multiplyHigh(P1P2, k3) + (Long.compareUnsigned(lo, x12) < 0 ? 1 : 0);
+        // x > P/2 rappresenta il coefficiente negativo x - P
+        long half = (P3 - 1) / 2;
+        if (k3 > half || (k3 == half && x12 > P1P2 / 2)) {
+            hi -= P_HIGH + (Long.compareUnsigned(lo, P_LOW) < 0 ? 1 : 0);
+            lo -= P_LOW;
+        }
+        high[i] = hi;
+        low[i] = lo;
+    }
+
+    /**
+     * Post-condizioni: restituisce modulo p l'intero x fra 0 e P - 1 tale che x
+     * mod P1 = r1, x mod P2 = r2 e x mod P3 = r3; p1p2 è P1 P2 mod p
+     */
+    private static int garnerMod(long r1, long r2, long r3, long p, long p1p2) {
+        long k2 = (r2 - r1 % P2 + P2) % P2 * INV_P1_MOD_P2 % P2;
+        long x12 = r1 + P1 * k2;
+        long k3 = (r3 - x12 % P3 + P3) % P3 * INV_P1P2_MOD_P3 % P3;
+        return (int) ((x12 % p + p1p2 * (k3 % p)) % p);
+    }
+
+    /**
+     * Post-condizioni: restituisce i 32 bit bassi dell'intero x fra -P/2 e P/2
+     * tale che x mod P1 = r1, x mod P2 = r2 e x mod P3 = r3
+     */
+    private static int garner(long r1, long r2, long r3) {
+        // x = x12 + P1 P2 k3, con 0 <= x12 < P1 P2 e 0 <= k3 < P3
+        long k2 = (r2 - r1 % P2 + P2) % P2 * INV_P1_MOD_P2 % P2;
+        long x12 = r1 + P1 * k2;
+        long k3 = (r3 - x12 % P3 + P3) % P3 * INV_P1P2_MOD_P3 % P3;
+        long low = x12 + P1P2 * k3;
+        // x > P/2 rappresenta il coefficiente negativo x - P
+        long half = (P3 - 1) / 2;
+        if (k3 > half || (k3 == half && x12 > P1P2 / 2))
+            low -= P_LOW;
+        return (int) low;
+    }
+
+    /**
+     * Post-condizioni: restituisce i coefficienti del prodotto di a e b modulo p,
+     * in un array di lunghezza size
+     */
+    private static long[] convolution(int[] a, int[] b, int size, long p) {
+        long[] fa = reduce(a, size, p);
+        long[] fb = reduce(b, size, p);
+        transform(fa, p, false);
+        transform(fb, p, false);
+        for (int i = 0; i < size; i++)
+            fa[i] = fa[i] * fb[i] % p;
+        transform(fa, p, true);
+        return fa;
+    }
+
+    /**
+     * Post-condizioni: restituisce un array di lunghezza size con i coefficienti
+     * di a ridotti modulo p fra 0 e p - 1, e zeri nelle posizioni successive
+     */
+    private static long[] reduce(int[] a, int size, long p) {
+        long[] r = new long[size];
+        for (int i = 0; i < a.length; i++) {
+            long c = a[i] % p;
+            r[i] = c < 0 ? c + p : c;
+        }
+        return r;
+    }
+
+    /**
+     * Pre-condizioni: f.length è una potenza di 2 che divide p - 1
+     *
+     * Effetti collaterali: f è modificato
+     *
+     * Post-condizioni: sostituisce f con la sua trasformata numerica modulo p,
+     * oppure con l'inversa se inverse è true (iterativa, in place)
+     */
+    private static void transform(long[] f, long p, boolean inverse) {
+        int n = f.length;
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1)
+                j ^= bit;
+            j ^= bit;
+            if (i < j) {
+                long t = f[i];
+                f[i] = f[j];
+                f[j] = t;
+            }
+        }
+        long[] w = new long[n / 2];
+        for (int len = 2; len <= n; len <<= 1) {
+            long step = pow(ROOT, (p - 1) / len, p);
+            if (inverse)
+                step = pow(step, p - 2, p);
+            int half = len / 2;
+            w[0] = 1;
+            for (int i = 1; i < half; i++)
+                w[i] = w[i - 1] * step % p;
+            for (int i = 0; i < n; i += len) {
+                for (int j = 0; j < half; j++) {
+                    long u = f[i + j];
+                    long v = f[i + j + half] * w[j] % p;
+                    f[i + j] = u + v < p ? u + v : u + v - p;
+                    f[i + j + half] = u - v >= 0 ? u - v : u - v + p;
+                }
+            }
+        }
+        if (inverse) {
+            long inv = pow(n, p - 2, p);
+            for (int i = 0; i < n; i++)
+                f[i] = f[i] * inv % p;
+        }
+    }
+
+    /** Sottoprodotto di Karatsuba eseguito come task del ForkJoinPool */
+    private static final class KaratsubaTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a, b, r;
+        private final int ao, bo, n;
+
+        KaratsubaTask(int[] a, int ao, int[] b, int bo, int n, int[] r) {
+            this.a = a;
+            this.ao = ao;
+            this.b = b;
+            this.bo = bo;
+            this.n = n;
+            this.r = r;
+        }
+
+        @Override
+        protected void compute() {
+            karatsuba(a, ao, b, bo, n, r, 0);
+        }
+    }
+
+    /** Post-condizioni: restituisce base^e modulo p */
+    private static long pow(long base, long e, long p) {
+        long r = 1;
+        base %= p;
+        for (; e > 0; e >>= 1) {
+            if ((e & 1) != 0)
+                r = r * base % p;
+            base = base * base % p;
+        }
+        return r;
+    }
+}
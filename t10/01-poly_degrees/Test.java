@@ -10,7 +10,7 @@ public class Test {
         Poly p = new Poly();
         try (Scanner s = new Scanner(new FileInputStream(new File("input-1.txt")))) {
             while (s.hasNextInt())
-                p = p.add(new Poly(s.nextInt(), s.nextInt()));
+                p = p.add(Poly.valueOf(s.nextInt(), s.nextInt()));
         } catch (FileNotFoundException e) {
             System.out.println(e);
         }
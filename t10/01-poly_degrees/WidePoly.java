@@ -0,0 +1,557 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * OVERVIEW: Le istanze di questa classe rappresentano dei polinomi a
+ * coefficienti interi senza limiti di grandezza, WidePoly è immutabile. A
+ * differenza di Poly le operazioni non vanno mai in overflow: un tipico
+ * WidePoly è [2, 2^70, -19] -> 2x^0 + 2^70x + -19x^2.
+ * <p>
+ * Tutti i coefficienti sono memorizzati in un unico array di int (limb da 32
+ * bit) con passo fisso stride: il coefficiente di grado i occupa limbs[i *
+ * stride], ..., limbs[i * stride + stride - 1], dal limb meno significativo al
+ * più significativo, in complemento a due. Con stride = 1 i coefficienti sono
+ * int, con stride = 2 sono long, con stride maggiore sono interi grandi, senza
+ * creare un BigInteger per coefficiente. Le operazioni usano l'aritmetica int
+ * o long finché il risultato ci sta e passano ai limb solo quando rilevano un
+ * overflow; il risultato viene poi riportato allo stride più piccolo possibile.
+ * Il prodotto di polinomi lunghi con coefficienti int o long usa invece la NTT
+ * esatta di PolyMultiplier, senza controllare l'overflow termine per termine.
+ * <p>
+ * Funzione di astrazione: AF(limbs, stride) = c_0 x^0 + c_1 x^1 + ... + c_n
+ * x^n, con n = limbs.length / stride - 1 e c_i l'intero in complemento a due
+ * formato da limbs[i * stride], ..., limbs[i * stride + stride - 1]
+ * <p>
+ * Invariante di rappresentazione: limbs != null, stride > 0, limbs.length è un
+ * multiplo positivo di stride, se n > 0 allora c_n != 0, stride è il più piccolo
+ * numero di limb che rappresenta ogni c_i (quindi stride = 1 se e solo se ogni
+ * c_i è un int)
+ */
+public class WidePoly {
+
+    private static final long MASK = 0xFFFFFFFFL;
+
+    /**
+     * Da questa lunghezza del fattore più corto il prodotto di coefficienti int o
+     * long usa la NTT invece del prodotto scolastico
+     */
+    private static final int NTT_THRESHOLD = 128;
+
+    /** Bit di ogni cifra in cui mulNtt divide i coefficienti long */
+    private static final int DIGIT_BITS = 31;
+
+    /** I coefficienti, stride limb ciascuno */
+    private final int[] limbs;
+
+    /** Numero di limb di ogni coefficiente */
+    private final int stride;
+
+    /**
+     * Post-condizioni: Inizializza un nuovo polinomio 0, il polinomio 0 è il
+     * polinomio 0x^0
+     */
+    public WidePoly() {
+        this(new int[1], 1);
+    }
+
+    /**
+     * Post-condizioni: Inizializza un nuovo polinomio cx^n, se c è uguale a 0
+     * inizializza il polinomio zero. Solleva NegativeExponentException se n è
+     * minore di 0
+     */
+    public WidePoly(long c, int n) {
+        this(monomial(c, n));
+    }
+
+    /**
+     * Post-condizioni: Inizializza un nuovo polinomio cx^n, se c è uguale a 0
+     * inizializza il polinomio zero. Solleva NegativeExponentException se n è
+     * minore di 0 e NullPointerException se c è null
+     */
+    public WidePoly(BigInteger c, int n) {
+        this(monomial(c, n));
+    }
+
+    /**
+     * Post-condizioni: Inizializza un nuovo polinomio con gli stessi coefficienti
+     * di p. Solleva NullPointerException se p è null
+     */
+    public WidePoly(Poly p) {
+        this(normalize(coefficients(p), 1));
+    }
+
+    /** Post-condizioni: copia in this il polinomio p */
+    private WidePoly(WidePoly p) {
+        this(p.limbs, p.stride);
+    }
+
+    /**
+     * Pre-condizioni: limbs e stride rispettano l'invariante di rappresentazione
+     *
+     * Post-condizioni: inizializza this con limbs e stride, senza copiarli
+     */
+    private WidePoly(int[] limbs, int stride) {
+        this.limbs = limbs;
+        this.stride = stride;
+        assert repOk();
+    }
+
+    /** Post-condizioni: restituisce il grado di this */
+    public int degree() {
+        return limbs.length / stride - 1;
+    }
+
+    /** Post-condizioni: restituisce il coefficiente di grado d, 0 se d < 0 o d > degree() */
+    public BigInteger coeff(int d) {
+        if (d < 0 || d > degree())
+            return BigInteger.ZERO;
+        if (stride <= 2)
+            return BigInteger.valueOf(get(d));
+        byte[] bytes = new byte[4 * stride];
+        for (int j = 0; j < stride; j++) {
+            int limb = limbs[d * stride + j];
+            int at = bytes.length - 4 * (j + 1);
+            bytes[at] = (byte) (limb >>> 24);
+            bytes[at + 1] = (byte) (limb >>> 16);
+            bytes[at + 2] = (byte) (limb >>> 8);
+            bytes[at + 3] = (byte) limb;
+        }
+        return new BigInteger(bytes);
+    }
+
+    /**
+     * Post-condizioni: restituisce il numero di bit con cui è memorizzato ogni
+     * coefficiente di this: 32 per int, 64 per long, un multiplo di 32 maggiore
+     * per i coefficienti grandi
+     */
+    public int coefficientBits() {
+        return 32 * stride;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo polinomio corrispondente alla somma di
+     * this e q. Solleva NullPointerException se q è null
+     */
+    public WidePoly add(WidePoly q) {
+        Objects.requireNonNull(q);
+        int n = Math.max(limbs.length / stride, q.limbs.length / q.stride);
+        if (stride <= 2 && q.stride <= 2) {
+            long[] sum = new long[n];
+            boolean overflow = false;
+            for (int i = 0; i < n; i++) {
+                long a = get(i), b = q.get(i);
+                long s = a + b;
+                // Overflow se a e b hanno lo stesso segno e s ha segno diverso
+                overflow |= ((a ^ s) & (b ^ s)) < 0;
+                sum[i] = s;
+            }
+            if (!overflow)
+                return fromLongs(sum);
+        }
+        int s = Math.max(stride, q.stride) + 1;
+        int[] r = new int[n * s];
+        for (int i = 0; i < n; i++) {
+            long carry = 0;
+            for (int j = 0; j < s; j++) {
+                long t = (limb(i, j) & MASK) + (q.limb(i, j) & MASK) + carry;
+                r[i * s + j] = (int) t;
+                carry = t >>> 32;
+            }
+        }
+        return normalize(r, s);
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo polinomio corrispondente alla
+     * differenza fra this e q. Solleva NullPointerException se q è null
+     */
+    public WidePoly sub(WidePoly q) {
+        Objects.requireNonNull(q);
+        return add(q.minus());
+    }
+
+    /** Post-condizioni: restituisce un nuovo polinomio opposto di this */
+    public WidePoly minus() {
+        int n = limbs.length / stride;
+        if (stride <= 2) {
+            long[] opposite = new long[n];
+            boolean overflow = false;
+            for (int i = 0; i < n; i++) {
+                long a = get(i);
+                overflow |= a == Long.MIN_VALUE;
+                opposite[i] = -a;
+            }
+            if (!overflow)
+                return fromLongs(opposite);
+        }
+        // -c = ~c + 1, con un limb in più per l'opposto del minimo
+        int s = stride + 1;
+        int[] r = new int[n * s];
+        for (int i = 0; i < n; i++) {
+            long carry = 1;
+            for (int j = 0; j < s; j++) {
+                long t = (~limb(i, j) & MASK) + carry;
+                r[i * s + j] = (int) t;
+                carry = t >>> 32;
+            }
+        }
+        return normalize(r, s);
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo polinomio corrispondente al prodotto
+     * fra this e q. Solleva NullPointerException se q è null
+     */
+    public WidePoly mul(WidePoly q) {
+        Objects.requireNonNull(q);
+        int n = limbs.length / stride, m = q.limbs.length / q.stride;
+        if (stride <= 2 && q.stride <= 2 && Math.min(n, m) >= NTT_THRESHOLD
+                && n + m - 1 <= PolyMultiplier.MAX_NTT_LENGTH)
+            return mulNtt(q);
+        if (stride <= 2 && q.stride <= 2) {
+            long[] product = new long[n + m - 1];
+            boolean overflow = false;
+            for (int i = 0; i < n && !overflow; i++) {
+                long a = get(i);
+                if (a == 0)
+                    continue;
+                for (int j = 0; j < m; j++) {
+                    long b = q.get(j);
+                    long low = a * b;
+                    long acc = product[i + j];
+                    long s = acc + low;
+                    // Overflow se il prodotto non sta in un long o se la somma cambia segno
+                    if (Math.multiplyHigh(a, b) != (low >> 63) || ((acc ^ s) & (low ^ s)) < 0) {
+                        overflow = true;
+                        break;
+                    }
+                    product[i + j] = s;
+                }
+            }
+            if (!overflow)
+                return fromLongs(product);
+        }
+        return mulLimbs(q);
+    }
+
+    /**
+     * Pre-condizioni: stride <= 2, q.stride <= 2, il prodotto ha al più
+     * PolyMultiplier.MAX_NTT_LENGTH coefficienti
+     *
+     * Post-condizioni: restituisce il prodotto fra this e q calcolato con la NTT
+     * esatta di PolyMultiplier. I coefficienti int sono usati così come sono,
+     * quelli long vengono divisi in tre cifre int c = d_0 + d_1 2^31 + d_2 2^62,
+     * con d_0 e d_1 fra 0 e 2^31 - 1: il prodotto è la somma dei prodotti delle
+     * cifre, ognuno moltiplicato per 2^(31 (k + l)) e accumulato in coefficienti
+     * di stride + q.stride + 1 limb come in mulLimbs
+     */
+    private WidePoly mulNtt(WidePoly q) {
+        int[][] da = digits(), db = q.digits();
+        int n = limbs.length / stride, m = q.limbs.length / q.stride;
+        int s = stride + q.stride + 1;
+        int[] r = new int[(n + m - 1) * s];
+        for (int k = 0; k < da.length; k++) {
+            if (da[k] == null)
+                continue;
+            for (int l = 0; l < db.length; l++) {
+                if (db[l] == null)
+                    continue;
+                long[][] product = PolyMultiplier.multiplyExact(da[k], db[l]);
+                int shift = DIGIT_BITS * (k + l);
+                for (int i = 0; i < product[0].length; i++)
+                    accumulate(r, i * s, s, product[0][i], product[1][i], shift);
+            }
+        }
+        return normalize(r, s);
+    }
+
+    /**
+     * Pre-condizioni: stride <= 2
+     *
+     * Post-condizioni: restituisce le cifre dei coefficienti di this: con stride
+     * 1 un solo array con i coefficienti, con stride 2 tre array con le cifre d_0,
+     * d_1 e d_2 di ogni coefficiente, null al posto di quelli tutti 0
+     */
+    private int[][] digits() {
+        if (stride == 1)
+            return new int[][] { limbs };
+        int n = limbs.length / 2;
+        int[][] d = new int[3][n];
+        boolean[] used = new boolean[3];
+        for (int i = 0; i < n; i++) {
+            long c = get(i);
+            d[0][i] = (int) (c & Integer.MAX_VALUE);
+            d[1][i] = (int) (c >> DIGIT_BITS & Integer.MAX_VALUE);
+            d[2][i] = (int) (c >> 2 * DIGIT_BITS);
+            for (int k = 0; k < 3; k++)
+                used[k] |= d[k][i] != 0;
+        }
+        for (int k = 0; k < 3; k++)
+            if (!used[k])
+                d[k] = null;
+        return d;
+    }
+
+    /**
+     * Post-condizioni: restituisce il prodotto fra this e q calcolato sui limb:
+     * ogni coppia di coefficienti viene moltiplicata in valore assoluto e poi
+     * sommata o sottratta al coefficiente del risultato, che ha stride + q.stride
+     * + 1 limb e quindi contiene la somma di fino a 2^31 prodotti
+     */
+    private WidePoly mulLimbs(WidePoly q) {
+        int n = limbs.length / stride, m = q.limbs.length / q.stride;
+        int sa = stride, sb = q.stride, s = sa + sb + 1;
+        int[] magA = new int[n * sa], magB = new int[m * sb];
+        boolean[] negA = magnitudes(magA), negB = q.magnitudes(magB);
+        int[] r = new int[(n + m - 1) * s];
+        int[] t = new int[sa + sb];
+        for (int i = 0; i < n; i++) {
+            if (isZero(magA, i * sa, sa))
+                continue;
+            for (int j = 0; j < m; j++) {
+                Arrays.fill(t, 0);
+                for (int x = 0; x < sa; x++) {
+                    long carry = 0;
+                    long ax = magA[i * sa + x] & MASK;
+                    for (int y = 0; y < sb; y++) {
+                        long v = ax * (magB[j * sb + y] & MASK) + (t[x + y] & MASK) + carry;
+                        t[x + y] = (int) v;
+                        carry = v >>> 32;
+                    }
+                    t[x + sb] = (int) carry;
+                }
+                accumulate(r, (i + j) * s, s, t, negA[i] != negB[j]);
+            }
+        }
+        return normalize(r, s);
+    }
+
+    /**
+     * Effetti collaterali: mag è modificato
+     *
+     * Post-condizioni: scrive in mag il valore assoluto di ogni coefficiente di
+     * this, stride limb senza segno ciascuno, e restituisce per ogni
+     * coefficiente true se è negativo
+     */
+    private boolean[] magnitudes(int[] mag) {
+        int n = limbs.length / stride;
+        boolean[] negative = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            negative[i] = limbs[i * stride + stride - 1] < 0;
+            long carry = 1;
+            for (int j = 0; j < stride; j++) {
+                int limb = limbs[i * stride + j];
+                if (negative[i]) {
+                    long v = (~limb & MASK) + carry;
+                    mag[i * stride + j] = (int) v;
+                    carry = v >>> 32;
+                } else {
+                    mag[i * stride + j] = limb;
+                }
+            }
+        }
+        return negative;
+    }
+
+    /**
+     * Effetti collaterali: r è modificato
+     *
+     * Post-condizioni: somma (o sottrae se subtract è true) il numero senza segno
+     * t al numero in complemento a due r[at], ..., r[at + s - 1], modulo 2^(32 s)
+     */
+    private static void accumulate(int[] r, int at, int s, int[] t, boolean subtract) {
+        long carry = subtract ? 1 : 0;
+        for (int j = 0; j < s; j++) {
+            long tj = j < t.length ? t[j] & MASK : 0;
+            if (subtract)
+                tj = ~tj & MASK;
+            long v = (r[at + j] & MASK) + tj + carry;
+            r[at + j] = (int) v;
+            carry = v >>> 32;
+        }
+    }
+
+    /**
+     * Effetti collaterali: r è modificato
+     *
+     * Post-condizioni: somma al numero in complemento a due r[at], ..., r[at + s
+     * - 1], modulo 2^(32 s), l'intero a 128 bit in complemento a due (high, low)
+     * moltiplicato per 2^shift
+     */
+    private static void accumulate(int[] r, int at, int s, long high, long low, int shift) {
+        int words = shift / 32, bits = shift % 32;
+        long carry = 0;
+        for (int j = words; j < s; j++) {
+            long t = word(high, low, j - words) & MASK;
+            if (bits != 0)
+                t = (t << bits | (word(high, low, j - words - 1) & MASK) >>> 32 - bits) & MASK;
+            long v = (r[at + j] & MASK) + t + carry;
+            r[at + j] = (int) v;
+            carry = v >>> 32;
+        }
+    }
+
+    /**
+     * Post-condizioni: restituisce il limb j dell'intero a 128 bit in complemento
+     * a due (high, low), esteso col segno oltre il quarto e 0 se j < 0
+     */
+    private static int word(long high, long low, int j) {
+        if (j < 0)
+            return 0;
+        if (j < 2)
+            return (int) (low >>> 32 * j);
+        if (j < 4)
+            return (int) (high >>> 32 * (j - 2));
+        return (int) (high >> 63);
+    }
+
+    private static boolean isZero(int[] a, int from, int length) {
+        for (int j = from; j < from + length; j++)
+            if (a[j] != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Pre-condizioni: stride <= 2
+     *
+     * Post-condizioni: restituisce il coefficiente di grado i come long, 0 se i
+     * supera il grado
+     */
+    private long get(int i) {
+        if (i >= limbs.length / stride)
+            return 0;
+        if (stride == 1)
+            return limbs[i];
+        return (limbs[2 * i] & MASK) | ((long) limbs[2 * i + 1] << 32);
+    }
+
+    /**
+     * Post-condizioni: restituisce il limb j del coefficiente di grado i, esteso
+     * col segno oltre stride e 0 se i supera il grado
+     */
+    private int limb(int i, int j) {
+        if (i >= limbs.length / stride)
+            return 0;
+        if (j < stride)
+            return limbs[i * stride + j];
+        return limbs[i * stride + stride - 1] >> 31;
+    }
+
+    /**
+     * Post-condizioni: restituisce il polinomio con coefficienti values, col
+     * grado accorciato e stride 1 se tutti i coefficienti sono int, 2 altrimenti
+     */
+    private static WidePoly fromLongs(long[] values) {
+        int n = values.length;
+        while (n > 1 && values[n - 1] == 0)
+            n--;
+        boolean ints = true;
+        for (int i = 0; i < n && ints; i++)
+            ints = values[i] == (int) values[i];
+        if (ints) {
+            int[] r = new int[n];
+            for (int i = 0; i < n; i++)
+                r[i] = (int) values[i];
+            return new WidePoly(r, 1);
+        }
+        int[] r = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            r[2 * i] = (int) values[i];
+            r[2 * i + 1] = (int) (values[i] >>> 32);
+        }
+        return new WidePoly(r, 2);
+    }
+
+    /**
+     * Post-condizioni: restituisce il polinomio con i coefficienti di s limb in r,
+     * col grado accorciato e lo stride più piccolo che li rappresenta tutti
+     */
+    private static WidePoly normalize(int[] r, int s) {
+        int n = r.length / s;
+        while (n > 1 && isZero(r, (n - 1) * s, s))
+            n--;
+        int needed = 1;
+        for (int i = 0; i < n; i++) {
+            int k = s;
+            // Il limb più alto è superfluo se è solo l'estensione del segno del precedente
+            while (k > needed && r[i * s + k - 1] == r[i * s + k - 2] >> 31)
+                k--;
+            needed = k;
+        }
+        if (needed == s && n == r.length / s)
+            return new WidePoly(r, s);
+        int[] limbs = new int[n * needed];
+        for (int i = 0; i < n; i++)
+            System.arraycopy(r, i * s, limbs, i * needed, needed);
+        return new WidePoly(limbs, needed);
+    }
+
+    private static WidePoly monomial(long c, int n) {
+        if (n < 0)
+            throw new NegativeExponentException();
+        if (c == 0)
+            return new WidePoly();
+        long[] values = new long[n + 1];
+        values[n] = c;
+        return fromLongs(values);
+    }
+
+    private static WidePoly monomial(BigInteger c, int n) {
+        Objects.requireNonNull(c);
+        if (n < 0)
+            throw new NegativeExponentException();
+        if (c.signum() == 0)
+            return new WidePoly();
+        int s = c.bitLength() / 32 + 1;
+        int[] r = new int[(n + 1) * s];
+        for (int j = 0; j < s; j++)
+            r[n * s + j] = c.shiftRight(32 * j).intValue();
+        return normalize(r, s);
+    }
+
+    private static int[] coefficients(Poly p) {
+        int[] r = new int[p.degree() + 1];
+        for (int i = 0; i < r.length; i++)
+            r[i] = p.coeff(i);
+        return r;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder polinomio = new StringBuilder("Polinomio: ");
+        for (int i = 0; i < degree(); i++)
+            polinomio.append(coeff(i)).append("x^").append(i).append(" + ");
+        return polinomio.append(coeff(degree())).append("x^").append(degree()).toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof WidePoly))
+            return false;
+        WidePoly compare = (WidePoly) obj;
+        // Per RI la rappresentazione di un polinomio è unica
+        return compare.stride == stride && Arrays.equals(compare.limbs, limbs);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * stride + Arrays.hashCode(limbs);
+    }
+
+    public boolean repOk() {
+        if (limbs == null || stride <= 0 || limbs.length == 0 || limbs.length % stride != 0)
+            return false;
+        int n = limbs.length / stride;
+        if (n > 1 && isZero(limbs, (n - 1) * stride, stride))
+            return false;
+        if (stride == 1)
+            return true;
+        // Almeno un coefficiente deve usare il limb più alto
+        for (int i = 0; i < n; i++)
+            if (limbs[i * stride + stride - 1] != limbs[i * stride + stride - 2] >> 31)
+                return true;
+        return false;
+    }
+}
@@ -1,55 +1,83 @@
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.stream.IntStream;
 
 /**
  * OVERVIEW: Le istanze di questa classe rappresentano dei Polinomi. Gli oggetti
  * di questo tipo sono immutabili
  * 
+ * I termini con coefficente diverso da 0 sono memorizzati in due array
+ * paralleli ordinati per grado crescente, quindi add è una fusione lineare,
+ * coeff una ricerca binaria e degree costa O(1).
  * 
- * Funzione di astrazione: AF(elements) =
- * elements.get(0)x^elements.get(0).degree +
- * elements.get(1)x^elements.get(1).degree + ... + elements.get(elements.size -
- * 1)x^elements.get(elements.size - 1).degree
+ * Funzione di astrazione: AF(degrees, coeffs) = coeffs[0]x^degrees[0] +
+ * coeffs[1]x^degrees[1] + ... + coeffs[degrees.length - 1]x^degrees[degrees.length
+ * - 1], 0x^0 se degrees.length = 0
  * 
- * Invariante di rappresentazione: elements è diverso da null ogni elemento di
- * elements è diverso da null ogni elemento di elements ha grado diverso
- * rispetto a tutti gli altri elmenti di elements
+ * Invariante di rappresentazione: degrees e coeffs sono diversi da null e hanno
+ * la stessa lunghezza, degrees è ordinato in ordine strettamente crescente e
+ * non contiene gradi negativi, ogni elemento di coeffs è diverso da 0
  * 
- * Invariante di astrazione: ogni Term all'interno di poly ha grado diverso
- * dagli altri
+ * Invariante di astrazione: i termini del polinomio hanno gradi diversi fra
+ * loro e coefficenti diversi da 0
  */
 public class Poly {
-    private final List<Term> elements;
+    /** I gradi dei termini con coefficente diverso da 0, in ordine crescente */
+    private final int[] degrees;
+
+    /** I coefficenti dei termini: coeffs[i] è il coefficente di grado degrees[i] */
+    private final int[] coeffs;
 
     /**
-     * Post-condizioni: restituisce un Iteratore sui termini del polinomio in ordine
-     * crescente di grado
+     * Post-condizioni: restituisce un Iteratore sui termini del polinomio con
+     * coefficente diverso da 0 in ordine crescente di grado
      */
     public Iterator<Poly.Term> terms() {
         return new TermsGenerator(this);
     }
 
+    /**
+     * Post-condizioni: restituisce uno stream dei gradi dei termini con
+     * coefficente diverso da 0, in ordine crescente
+     */
+    public IntStream termDegrees() {
+        return Arrays.stream(degrees);
+    }
+
+    /**
+     * Post-condizioni: restituisce uno stream dei coefficenti diversi da 0, nello
+     * stesso ordine dei gradi di termDegrees
+     */
+    public IntStream termCoeffs() {
+        return Arrays.stream(coeffs);
+    }
+
+    /**
+     * Generatore dei termini: scorre direttamente gli array di p, che sono già
+     * ordinati per grado e non contengono coefficenti nulli
+     */
     static class TermsGenerator implements Iterator<Poly.Term> {
-        private Poly p;
+        private final int[] degrees;
+        private final int[] coeffs;
         private int index;
 
         TermsGenerator(Poly p) {
-            this.p = p.sortByDegree();
+            degrees = p.degrees;
+            coeffs = p.coeffs;
         }
 
         @Override
         public boolean hasNext() {
-            return index < p.elements.size();
+            return index < degrees.length;
         }
 
         @Override
         public Term next() {
             if (!hasNext())
                 throw new NoSuchElementException();
-            Term next = p.elements.get(index);
+            Term next = new Term(coeffs[index], degrees[index]);
             index++;
             return next;
         }
@@ -59,16 +87,14 @@ public class Poly {
      * Post-condizioni: inizializza un nuovo Poly 0
      * 
      * Preservazione RI: preserva l'invariante di rappresentazione poichè costruisce
-     * sempre il polinomio zero, ovvero il polinomio composto da un unico Term di
-     * grado zero con coefficente zero, ammesso dall'invariante di rappresentazione
+     * sempre il polinomio zero, ovvero il polinomio senza termini con coefficente
+     * diverso da 0, ammesso dall'invariante di rappresentazione
      * 
-     * Correttezza: AF(elements) = elements.get(0)x^elements.get(0).degree +
-     * elements.get(1)x^elements.get(1).degree + ... + elements.get(elements.size -
-     * 1)x^elements.get(elements.size - 1).degree = 0x^0
+     * Correttezza: AF(degrees, coeffs) = 0x^0
      */
     public Poly() {
-        elements = new ArrayList<>();
-        elements.add(new Term(0, 0));
+        degrees = new int[0];
+        coeffs = new int[0];
         assert repOK();
     }
 
@@ -76,138 +102,117 @@ public class Poly {
      * Post-condizioni: inizializza un nuovo Poly cX^n, solleva
      * NegativeExponentException se n è minore di 0
      * 
-     * Preservazione RI: inizializza un nuovo polinomio contente un unico Term di
-     * grado n con coefficente c, se n è minore di 0 viene sollevata una
-     * NegativeExponentException
+     * Preservazione RI: inizializza un nuovo polinomio contente un unico termine di
+     * grado n con coefficente c, oppure nessun termine se c è 0; se n è minore di
+     * 0 viene sollevata una NegativeExponentException
      * 
-     * Correttezza: AF(elements) = elements.get(0)x^elements.get(0).degree +
-     * elements.get(1)x^elements.get(1).degree + ... + elements.get(elements.size -
-     * 1)x^elements.get(elements.size - 1).degree = cx^n
+     * Correttezza: AF(degrees, coeffs) = coeffs[0]x^degrees[0] = cx^n, oppure 0x^0
+     * se c è 0
      */
     public Poly(int c, int n) {
         if (n < 0)
             throw new NegativeExponentException();
-        elements = new ArrayList<>();
-        elements.add(new Term(c, n));
+        degrees = c == 0 ? new int[0] : new int[] { n };
+        coeffs = c == 0 ? new int[0] : new int[] { c };
         assert repOK();
     }
 
     /**
+     * Pre-condizioni: degrees e coeffs rispettano l'invariante di
+     * rappresentazione
      * 
-     * Pre-condizioni: i monomi contenuti in nuoviElementi devono essere tutti di
-     * grado diverso fra loro e diversi da null
-     * 
-     * Effetti-collaterali: potrebbe modificare nuoviElementi, se all'interno della
-     * lista sono presenti monomi simili viene conservato solo il primo trovato
-     * 
-     * Post-condizioni: inizializza un nuovo Poly con i monomi presenti in elementi,
-     * solleva NullPointerException se la lista in input è null, solleva
-     * IllegalArgumentException se nuoviElementi ha dimensione 0
-     * 
-     * Preservazione RI: se nuoviElementi è null solleva un'eccezione, altrimenti se
-     * nuoviElementi rispetta le precondizioni il polinomio costruito rispetta
-     * l'invariante di rappresentazione
-     * 
+     * Post-condizioni: inizializza un nuovo Poly con i termini in degrees e
+     * coeffs, senza copiarli. È usato anche da PolyBuilder, che non deve più
+     * modificare gli array
      */
-    private Poly(List<Term> nuoviElementi) {
-        Objects.requireNonNull(nuoviElementi);
-
-        if (nuoviElementi.size() == 0)
-            throw new IllegalArgumentException("nuoviElementi deve contenere almeno 1 elemento");
-
-        this.elements = new ArrayList<>(nuoviElementi);
+    Poly(int[] degrees, int[] coeffs) {
+        this.degrees = degrees;
+        this.coeffs = coeffs;
         assert repOK();
     }
 
     /**
      * post-condizioni: restituisce un intero corrispondente al coefficente del Poly
      * al grado degree, solleva IllegalArgumentException se degree è maggiore del
-     * grado di this o è minore di 0
+     * grado di this
      * 
      * Correttezza: se degree è maggiore del grado del polinomio solleva
-     * un'eccezione, altrimenti il coefficente del polinomio di grado degree è il
-     * coefficente del Term che ha come grado degree
+     * un'eccezione, altrimenti la ricerca binaria in degrees trova il termine di
+     * grado degree, se esiste, e il coefficente è quello del termine oppure 0
      */
     public int coeff(int degree) {
         if (degree() < degree)
             throw new IllegalArgumentException("Il Poly ha grado " + degree());
-        int coeff = 0;
-        for (Term actual : elements) {
-            if (actual.degree() == degree)
-                coeff = actual.coeff();
-        }
-        return coeff;
+        int i = Arrays.binarySearch(degrees, degree);
+        return i >= 0 ? coeffs[i] : 0;
     }
 
     /**
      * Post-condizioni: restituisce un nuovo Poly uguale a this nel quale gli
-     * elementi sono ordinati per grado crescente e non esistono monomi con
-     * coefficente 0
+     * elementi sono ordinati per grado crescente e compaiono solo i monomi con
+     * coefficente positivo
      * 
-     * Preservazione RI: se this è un Poly valido allora qualunque sia la posizione
-     * nella quale si trovano i monomi il Poly è valido
+     * Preservazione RI: togliendo dei termini da degrees e coeffs l'ordine dei
+     * gradi resta crescente e i coefficenti restano diversi da 0
      * 
      */
     public Poly sortByDegree() {
-        List<Term> l = new ArrayList<Term>();
-        for (int i = 0; i <= degree(); i++) {
-            if (coeff(i) > 0) {
-                l.add(new Term(coeff(i), i));
+        int[] d = new int[degrees.length];
+        int[] c = new int[coeffs.length];
+        int k = 0;
+        for (int i = 0; i < degrees.length; i++) {
+            if (coeffs[i] > 0) {
+                d[k] = degrees[i];
+                c[k++] = coeffs[i];
             }
         }
-        return new Poly(l);
+        return new Poly(Arrays.copyOf(d, k), Arrays.copyOf(c, k));
     }
 
     /**
      * Post-condizioni: restituisce un intero corrispondente al grado di this
      * 
-     * Correttezza: il grado del polinomio è il grado del Term con grado più alto
-     * all'interno di esso
+     * Correttezza: il grado del polinomio è il grado dell'ultimo termine di
+     * degrees, che per RI è il più alto, oppure 0 se il polinomio è zero
      */
     public int degree() {
-        int degree = 0;
-        for (Term actual : elements)
-            if (actual.degree() > degree)
-                degree = actual.degree();
-        return degree;
-    }
-
-    // E' davvero una copia totale?
-    private List<Term> getElements() {
-        return new ArrayList<>(elements);
+        return degrees.length == 0 ? 0 : degrees[degrees.length - 1];
     }
 
     /**
      * Post-condizioni: restituisce un nuovo Poly corrispondente alla somma di this
      * con il Poly in input, solleva NullPointerException se il Poly in input è null
      * 
-     * Preservazione RI: se q è null solleva NullPointerException, altrimenti
-     * restituisce un nuovo polinomio contenente tutti i monomi di this e q che
-     * hanno grado diverso, e nuovi monomi corrispondenti alla somma dei due
-     * coefficenti se i monomi hanno grado uguale
+     * Preservazione RI: se q è null solleva NullPointerException, altrimenti i
+     * termini di this e q vengono fusi in ordine crescente di grado: i termini
+     * dello stesso grado vengono sommati e scartati se la somma è 0
      * 
      */
     public Poly add(Poly q) {
         assert repOK();
         Objects.requireNonNull(q);
-        List<Term> qElements = q.getElements();
-
-        for (Term actual : getElements()) {
-            boolean foundSimilar = false;
-            for (Term existent : qElements) {
-                if (actual.similar(existent)) {
-                    qElements.remove(existent);
-                    if (actual.coeff() != (existent.coeff() * -1)) {
-                        qElements.add(actual.addSimilar(existent));
-                    }
-                    foundSimilar = true;
-                    break;
+        int n = degrees.length, m = q.degrees.length;
+        int[] d = new int[n + m];
+        int[] c = new int[n + m];
+        int i = 0, j = 0, k = 0;
+        while (i < n || j < m) {
+            if (j == m || (i < n && degrees[i] < q.degrees[j])) {
+                d[k] = degrees[i];
+                c[k++] = coeffs[i++];
+            } else if (i == n || q.degrees[j] < degrees[i]) {
+                d[k] = q.degrees[j];
+                c[k++] = q.coeffs[j++];
+            } else {
+                int sum = coeffs[i] + q.coeffs[j];
+                if (sum != 0) {
+                    d[k] = degrees[i];
+                    c[k++] = sum;
                 }
+                i++;
+                j++;
             }
-            if (!(foundSimilar) && actual.coeff() != 0)
-                qElements.add(actual);
         }
-        return new Poly(qElements);
+        return new Poly(k == d.length ? d : Arrays.copyOf(d, k), k == c.length ? c : Arrays.copyOf(c, k));
     }
 
     /**
@@ -230,24 +235,81 @@ public class Poly {
      * Post-condizioni: restituisce un nuovo Poly corrispondente al prodotto di this
      * con il Poly in input, solleva NullPointerException se il Poly in input è null
      * 
-     * Preservazione RI: se q è null solleva NullPointerException, altrimenti
-     * vengono eseguite una serie di somme, operazione che mantiene valida
-     * l'invariante di rappresentazione
+     * Preservazione RI: se q è null solleva NullPointerException, altrimenti i
+     * prodotti fra i termini vengono generati in ordine crescente di grado, quelli
+     * dello stesso grado vengono sommati e le somme uguali a 0 scartate
      * 
      * Correttezza: la moltiplicazione è calcolata come somma dei prodotti parziali
      * fra i monomi dei due polinomi
      */
     public Poly mul(Poly q) {
         Objects.requireNonNull(q);
-        Poly result = new Poly(0, 0);
-        List<Term> qElements = q.getElements();
-        for (Term actual : getElements()) {
-            for (Term moltiplicatore : qElements) {
-                result = result.add(
-                        new Poly(actual.coeff() * moltiplicatore.coeff(), actual.degree() + moltiplicatore.degree()));
+        int[][] product = multiply(degrees, coeffs, q.degrees, q.coeffs);
+        return new Poly(product[0], product[1]);
+    }
+
+    /**
+     * Pre-condizioni: ad e bd sono ordinati in ordine strettamente crescente e
+     * hanno la stessa lunghezza di ac e bc
+     * 
+     * Post-condizioni: restituisce gradi e coefficenti, in ordine crescente di
+     * grado e senza coefficenti nulli, del prodotto fra il polinomio con termini
+     * (ad, ac) e quello con termini (bd, bc)
+     * 
+     * Solleva NegativeExponentException se il grado massimo del prodotto non è
+     * rappresentabile come int
+     * 
+     * Correttezza: i prodotti a_i b_j escono da una coda con priorità in ordine di
+     * grado (algoritmo di Johnson). La coda contiene al più una coppia (i, j) per
+     * ogni termine del polinomio più corto: la riga i + 1 entra quando esce (i,
+     * 0), che ha grado minore di (i + 1, 0), e dopo (i, j) entra (i, j + 1), che
+     * ha grado maggiore; quindi i gradi escono in ordine e quelli uguali sono
+     * consecutivi
+     */
+    private static int[][] multiply(int[] ad, int[] ac, int[] bd, int[] bc) {
+        if (ad.length > bd.length)
+            return multiply(bd, bc, ad, ac);
+        int n = ad.length, m = bd.length;
+        if (n > 0 && (long) ad[n - 1] + bd[m - 1] > Integer.MAX_VALUE)
+            throw new NegativeExponentException();
+        int[] rd = new int[n + m];
+        int[] rc = new int[n + m];
+        int k = 0;
+        if (n > 0) {
+            ProductHeap heap = new ProductHeap(ad, bd);
+            heap.push(0);
+            long current = heap.key(0);
+            int sum = 0;
+            while (!heap.isEmpty()) {
+                int i = heap.top(), j = heap.column(i);
+                long degree = heap.key(i);
+                if (degree != current) {
+                    if (sum != 0) {
+                        if (k == rd.length) {
+                            rd = Arrays.copyOf(rd, 2 * k);
+                            rc = Arrays.copyOf(rc, 2 * k);
+                        }
+                        rd[k] = (int) current;
+                        rc[k++] = sum;
+                    }
+                    current = degree;
+                    sum = 0;
+                }
+                sum += ac[i] * bc[j];
+                heap.advanceTop(m);
+                if (j == 0 && i + 1 < n)
+                    heap.push(i + 1);
+            }
+            if (sum != 0) {
+                if (k == rd.length) {
+                    rd = Arrays.copyOf(rd, k + 1);
+                    rc = Arrays.copyOf(rc, k + 1);
+                }
+                rd[k] = (int) current;
+                rc[k++] = sum;
             }
         }
-        return result;
+        return new int[][] { Arrays.copyOf(rd, k), Arrays.copyOf(rc, k) };
     }
 
     /**
@@ -257,33 +319,28 @@ public class Poly {
      * Preservazione RI: effettuando il cambio dei segni del coefficente dei monomi
      * del polinomio non è possibile invalidare l'invariante di rappresentazione
      * 
-     * Correttezza: -(elements.get(0)x^elements.get(0).degree +
-     * elements.get(1)x^elements.get(1).degree + ... + elements.get(elements.size -
-     * 1)x^elements.get(elements.size - 1).degree) =
-     * -elements.get(0)x^elements.get(0).degree -
-     * elements.get(1)x^elements.get(1).degree - ... - elements.get(elements.size -
-     * 1)x^elements.get(elements.size - 1).degree
+     * Correttezza: -(coeffs[0]x^degrees[0] + ... + coeffs[degrees.length -
+     * 1]x^degrees[degrees.length - 1]) = -coeffs[0]x^degrees[0] - ... -
+     * coeffs[degrees.length - 1]x^degrees[degrees.length - 1]
      */
     public Poly minus() {
-        List<Term> attuale = getElements();
-        ArrayList<Term> opposto = new ArrayList<>();
-        for (Term actual : attuale) {
-            opposto.add(actual.minus());
-        }
-        return new Poly(opposto);
+        int[] opposto = new int[coeffs.length];
+        for (int i = 0; i < coeffs.length; i++)
+            opposto[i] = -coeffs[i];
+        return new Poly(degrees, opposto);
     }
 
     @Override
     public String toString() {
-        String returnString = "Poly: {";
-        for (int i = 0; i < elements.size() - 1; i++) {
-            returnString += elements.get(i) + " + ";
+        StringBuilder returnString = new StringBuilder("Poly: {");
+        if (degrees.length == 0)
+            returnString.append("0x^0");
+        for (int i = 0; i < degrees.length; i++) {
+            if (i > 0)
+                returnString.append(" + ");
+            returnString.append(coeffs[i]).append("x^").append(degrees[i]);
         }
-        if (elements.size() > 0) {
-            returnString += elements.get(elements.size() - 1);
-        }
-        returnString += "} grado = " + this.degree();
-        return returnString;
+        return returnString.append("} grado = ").append(degree()).toString();
     }
 
     /**
@@ -291,15 +348,11 @@ public class Poly {
      * se l'invariante di rappresentazione è rispettato, false altrimenti
      */
     private boolean repOK() {
-        if (elements == null)
+        if (degrees == null || coeffs == null || degrees.length != coeffs.length)
             return false;
-        for (int i = 0; i < elements.size(); i++) {
-            if (elements.get(i) == null)
+        for (int i = 0; i < degrees.length; i++) {
+            if (coeffs[i] == 0 || degrees[i] < 0 || (i > 0 && degrees[i - 1] >= degrees[i]))
                 return false;
-            for (int j = 0; j < elements.size(); j++) {
-                if (i != j && elements.get(i).degree() == elements.get(j).degree())
-                    return false;
-            }
         }
         return true;
     }
@@ -309,16 +362,90 @@ public class Poly {
         if (!(obj instanceof Poly))
             return false;
         Poly temp = (Poly) obj;
-        if (temp.degree() != degree())
-            return false;
-        List<Term> el = temp.getElements();
-        for (Term i : elements) {
-            for (Term j : el) {
-                if (i.similar(j) && i.coeff() != j.coeff())
-                    return false;
+        // Per RI ogni polinomio ha una sola rappresentazione
+        return Arrays.equals(temp.degrees, degrees) && Arrays.equals(temp.coeffs, coeffs);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(degrees) + Arrays.hashCode(coeffs);
+    }
+
+    /**
+     * OVERVIEW: coda con priorità (heap binario) delle righe del prodotto di
+     * Johnson, mutabile. La riga i rappresenta la coppia (i, column[i]) e ha come
+     * chiave il grado ad[i] + bd[column[i]]
+     */
+    private static final class ProductHeap {
+        private final int[] ad, bd;
+        private final int[] column;
+        private final int[] heap;
+        private int size;
+
+        ProductHeap(int[] ad, int[] bd) {
+            this.ad = ad;
+            this.bd = bd;
+            column = new int[ad.length];
+            heap = new int[ad.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /** Post-condizioni: restituisce la riga con la chiave minima */
+        int top() {
+            return heap[0];
+        }
+
+        int column(int row) {
+            return column[row];
+        }
+
+        long key(int row) {
+            return (long) ad[row] + bd[column[row]];
+        }
+
+        /** Effetti collaterali: inserisce la riga row, alla colonna 0 */
+        void push(int row) {
+            int pos = size++;
+            long key = key(row);
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (key(heap[parent]) <= key)
+                    break;
+                heap[pos] = heap[parent];
+                pos = parent;
             }
+            heap[pos] = row;
+        }
+
+        /**
+         * Effetti collaterali: sposta la riga in cima alla colonna successiva, o la
+         * toglie se era all'ultima delle m colonne
+         */
+        void advanceTop(int m) {
+            int row = heap[0];
+            if (++column[row] == m) {
+                row = heap[--size];
+                if (size == 0)
+                    return;
+            }
+            long key = key(row);
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size)
+                    break;
+                if (child + 1 < size && key(heap[child + 1]) < key(heap[child]))
+                    child++;
+                if (key <= key(heap[child]))
+                    break;
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = row;
         }
-        return true;
     }
 
     /**
@@ -0,0 +1,228 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * OVERVIEW: Le istanze di questa classe accumulano i termini di un polinomio
+ * sparso, per costruire un Poly senza passare da una somma per ogni termine.
+ * Gli oggetti di questo tipo sono mutabili. Un accumulatore tipico è c_1x^n_1
+ * + c_2x^n_2 + ... + c_kx^n_k con gradi tutti diversi e coefficenti diversi da
+ * 0: aggiungere un termine di un grado già presente somma i coefficenti, e se
+ * la somma è 0 il termine sparisce.
+ *
+ * I termini sono memorizzati in una tabella hash a indirizzamento aperto
+ * (scansione lineare) di int: add costa O(1) in media e build ordina i termini
+ * una volta sola.
+ *
+ * Funzione di astrazione: AF(degrees, coeffs) = somma di coeffs[i]x^degrees[i]
+ * per ogni i con degrees[i] != FREE, 0x^0 se non ce ne sono
+ *
+ * Invariante di rappresentazione: degrees e coeffs sono diversi da null e hanno
+ * la stessa lunghezza, potenza di 2, mask = degrees.length - 1, size è il
+ * numero di posizioni con degrees[i] != FREE ed è al più degrees.length / 2,
+ * ogni grado diverso da FREE è maggiore o uguale a 0, compare una sola volta,
+ * ha coefficente diverso da 0 e si trova fra la sua posizione iniziale e i
+ * senza posizioni libere in mezzo
+ */
+public class PolyBuilder {
+
+    /** Grado delle posizioni libere, diverso da ogni grado valido */
+    private static final int FREE = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    /** I gradi dei termini, FREE nelle posizioni libere */
+    private int[] degrees;
+
+    /** I coefficenti: coeffs[i] è il coefficente di grado degrees[i] */
+    private int[] coeffs;
+
+    private int mask;
+
+    /** Il numero di termini con coefficente diverso da 0 */
+    private int size;
+
+    /**
+     * Post-condizioni: inizializza un nuovo accumulatore vuoto, che corrisponde al
+     * polinomio 0
+     */
+    public PolyBuilder() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Post-condizioni: inizializza un nuovo accumulatore vuoto, con spazio per
+     * expectedTerms termini prima di doversi ingrandire. Solleva
+     * IllegalArgumentException se expectedTerms è minore di 0 o maggiore di 2^29
+     */
+    public PolyBuilder(int expectedTerms) {
+        if (expectedTerms < 0 || expectedTerms > 1 << 29)
+            throw new IllegalArgumentException("Il numero di termini deve essere compreso fra 0 e 2^29");
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2 * expectedTerms)
+            capacity <<= 1;
+        allocate(capacity);
+        assert repOK();
+    }
+
+    /**
+     * Effetti collaterali: this è modificato
+     *
+     * Post-condizioni: aggiunge il termine cx^n a this e restituisce this, solleva
+     * NegativeExponentException se n è minore di 0
+     *
+     * Preservazione RI: se il grado n è già presente il coefficente viene sommato
+     * e il termine tolto se la somma è 0, altrimenti, se c è diverso da 0, il
+     * termine occupa la prima posizione libera dopo la sua posizione iniziale; la
+     * tabella viene ingrandita prima di superare la metà delle posizioni
+     */
+    public PolyBuilder add(int c, int n) {
+        if (n < 0)
+            throw new NegativeExponentException();
+        if (c == 0)
+            return this;
+        int i = slot(n);
+        while (degrees[i] != FREE) {
+            if (degrees[i] == n) {
+                coeffs[i] += c;
+                if (coeffs[i] == 0)
+                    remove(i);
+                return this;
+            }
+            i = (i + 1) & mask;
+        }
+        degrees[i] = n;
+        coeffs[i] = c;
+        if (++size > degrees.length / 2)
+            allocate(degrees.length * 2);
+        return this;
+    }
+
+    /**
+     * Effetti collaterali: this è modificato
+     *
+     * Post-condizioni: aggiunge a this tutti i termini di p e restituisce this,
+     * solleva NullPointerException se p è null
+     */
+    public PolyBuilder add(Poly p) {
+        Objects.requireNonNull(p);
+        int[] d = p.termDegrees().toArray();
+        int[] c = p.termCoeffs().toArray();
+        for (int i = 0; i < d.length; i++)
+            add(c[i], d[i]);
+        return this;
+    }
+
+    /**
+     * Post-condizioni: restituisce il numero di termini con coefficente diverso da
+     * 0 contenuti in this
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Post-condizioni: restituisce un nuovo Poly uguale al polinomio accumulato in
+     * this, che non viene modificato e può continuare a ricevere termini
+     *
+     * Correttezza: ogni termine è codificato in un long con il grado nei 32 bit
+     * alti e il coefficente nei 32 bit bassi; i gradi sono diversi e non negativi,
+     * quindi ordinare i long ordina i termini per grado crescente, come richiesto
+     * dall'invariante di rappresentazione di Poly
+     */
+    public Poly build() {
+        long[] terms = new long[size];
+        int k = 0;
+        for (int i = 0; i < degrees.length; i++)
+            if (degrees[i] != FREE)
+                terms[k++] = (long) degrees[i] << 32 | (coeffs[i] & 0xFFFFFFFFL);
+        Arrays.sort(terms);
+        int[] d = new int[size];
+        int[] c = new int[size];
+        for (int i = 0; i < size; i++) {
+            d[i] = (int) (terms[i] >>> 32);
+            c[i] = (int) terms[i];
+        }
+        return new Poly(d, c);
+    }
+
+    @Override
+    public String toString() {
+        return "PolyBuilder: " + build();
+    }
+
+    /** Post-condizioni: restituisce la posizione iniziale del grado n */
+    private int slot(int n) {
+        int h = n * 0x9E3779B9;
+        return (h ^ h >>> 16) & mask;
+    }
+
+    /**
+     * Effetti collaterali: libera la posizione i e riporta indietro i termini
+     * successivi che non si troverebbero più fra la loro posizione iniziale e la
+     * propria
+     */
+    private void remove(int i) {
+        size--;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (degrees[j] == FREE)
+                break;
+            int home = slot(degrees[j]);
+            // Il termine in j può andare in i se i è fra home e j (in modo circolare)
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                degrees[i] = degrees[j];
+                coeffs[i] = coeffs[j];
+                i = j;
+            }
+        }
+        degrees[i] = FREE;
+    }
+
+    /**
+     * Effetti collaterali: sostituisce la tabella con una vuota di capacity
+     * posizioni, reinserendo i termini presenti
+     */
+    private void allocate(int capacity) {
+        int[] oldDegrees = degrees;
+        int[] oldCoeffs = coeffs;
+        degrees = new int[capacity];
+        coeffs = new int[capacity];
+        Arrays.fill(degrees, FREE);
+        mask = capacity - 1;
+        if (oldDegrees == null)
+            return;
+        for (int i = 0; i < oldDegrees.length; i++) {
+            if (oldDegrees[i] == FREE)
+                continue;
+            int j = slot(oldDegrees[i]);
+            while (degrees[j] != FREE)
+                j = (j + 1) & mask;
+            degrees[j] = oldDegrees[i];
+            coeffs[j] = oldCoeffs[i];
+        }
+    }
+
+    /**
+     * Implementa l'invariante di rappresentazione Post-condizioni: restituisce true
+     * se l'invariante di rappresentazione è rispettato, false altrimenti
+     */
+    private boolean repOK() {
+        if (degrees == null || coeffs == null || degrees.length != coeffs.length)
+            return false;
+        if (Integer.bitCount(degrees.length) != 1 || mask != degrees.length - 1 || size > degrees.length / 2)
+            return false;
+        int count = 0;
+        for (int i = 0; i < degrees.length; i++) {
+            if (degrees[i] == FREE)
+                continue;
+            if (degrees[i] < 0 || coeffs[i] == 0)
+                return false;
+            count++;
+            for (int j = slot(degrees[i]); j != i; j = (j + 1) & mask)
+                if (degrees[j] == FREE || degrees[j] == degrees[i])
+                    return false;
+        }
+        return count == size;
+    }
+}
@@ -0,0 +1,21 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.util.Iterator;
+import java.util.Scanner;
+
+public class Test {
+
+    public static void main(String[] args) {
+        PolyBuilder b = new PolyBuilder();
+        try (Scanner s = new Scanner(new FileInputStream(new File("input-1.txt")))) {
+            while (s.hasNextInt())
+                b.add(s.nextInt(), s.nextInt());
+        } catch (FileNotFoundException e) {
+            System.out.println(e);
+        }
+        Iterator<Poly.Term> it = b.build().terms();
+        while (it.hasNext())
+            System.out.println(it.next());
+    }
+}
@@ -1,4 +1,6 @@
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 /**
  * OVERVIEW: Le istanze di questa classe rappresentano code (limitate) di
@@ -7,33 +9,43 @@ import java.util.Iterator;
  * struttura dati che opera in modalità FIFO, a seguito di una operazione di
  * enqueue la coda sarà [x_1, x_2, ..., x_k, x_k+1], mentre a seguito di una
  * operazione di dequeue la coda sarà [x_2, ..., x_k, x_k].
- * 
+ *
  */
 public class IntQueue {
     // Campi
-    /** La struttura dati contenente gli elementi dell'IntQueue this. */
+    /**
+     * La struttura dati contenente gli elementi dell'IntQueue this. La sua
+     * lunghezza è la più piccola potenza di 2 maggiore o uguale alla capienza,
+     * così la posizione di un contatore si ottiene con una maschera invece che
+     * con un modulo.
+     */
     private final int[] elements;
 
+    /** La capienza massima della coda */
+    private final int capacity;
+
+    /** La maschera elements.length - 1 */
+    private final int mask;
+
     /**
-     * Gli indici della testa e della coda della IntQueue. Nello specifico, head
-     * indica l'indice del primo elemento di this (-1 se la coda è vuota), mentre
-     * tail indica l'indice della prima posizione disponibile di this (head = tail
-     * se la coda è piena).
+     * I contatori della testa e della coda della IntQueue. Nello specifico, head
+     * conta gli elementi estratti e tail gli elementi inseriti dalla creazione
+     * della coda; l'elemento in testa si trova in elements[head & mask] e la
+     * prima posizione disponibile è elements[tail & mask]. I contatori possono
+     * superare Integer.MAX_VALUE: la differenza tail - head resta corretta.
      */
     private int head, tail;
 
     /**
-     * ABS FUN: AF(elements, head, tail) = [ elements[i] | head <= i < tail ] =
-     * [elements[head], elements[head+1], ..., elements[tail-1]] se -1 < head <=
-     * tail o [elements[head], elements[head+1], ..., elements[elements.size-1],
-     * elements[0], ..., elements[tail-1]] se head > tail
-     *
-     * REP INV: la coda non contiene più elementi della sua capienza massima, -1 <=
-     * head < size, 0 <= tail < size, head == -1 ⇒ tail = 0
-     * 
+     * ABS FUN: AF(elements, head, tail) = [ elements[i & mask] | head <= i < tail
+     * ] = [elements[head & mask], elements[(head+1) & mask], ...,
+     * elements[(tail-1) & mask]]
+     *
+     * REP INV: elements.length è una potenza di 2 maggiore o uguale a capacity,
+     * mask = elements.length - 1, 0 <= tail - head <= capacity
+     *
      * ABS INV: il numero massimo di elementi contenuto nella coda è esattamente
-     * uguale alla dimensione di quest'ultima, la coda vuota è quella con head in
-     * posizione -1 e tail = 0
+     * uguale alla sua capienza, la coda vuota è quella con head = tail
      */
 
     /** ITERATORE */
@@ -45,7 +57,6 @@ public class IntQueue {
     static class QueueElementGenerator implements Iterator<Integer> {
         IntQueue q;
         int index;
-        int count; 
 
         QueueElementGenerator(IntQueue queue) {
             this.q = queue;
@@ -54,15 +65,14 @@ public class IntQueue {
 
         @Override
         public boolean hasNext() {
-            return count != q.size();
+            return index != q.tail;
         }
 
         @Override
         public Integer next() {
-            Integer next = q.elements[index];
-            index = (index + 1) % q.elements.length;
-            count++;
-            return next;
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return q.elements[index++ & q.mask];
         }
     }
 
@@ -71,20 +81,28 @@ public class IntQueue {
      * Post-condizioni: Inizializza this affinché rappresenti una coda vuota con
      * dimensione massima n. Solleva un'eccezione di tipo NegativeArraySizeException
      * se n è negativo.
-     * 
-     * Preservazione RI: la coda viene inizializzata con dimensione n, head è a -1 e
-     * tail = 0 ciò significa che sto rappresentando la coda vuota senza alcun
-     * elemento al suo interno la quale può avere qualsiasi dimensione maggiore o
-     * uguale a 0, se n è minore di 0 viene sollevata un'eccezione
-     * 
+     *
+     * Preservazione RI: elements ha come lunghezza la più piccola potenza di 2
+     * maggiore o uguale a n (almeno 1), head e tail sono 0 quindi la coda
+     * contiene 0 <= capacity elementi, se n è minore di 0 viene sollevata
+     * un'eccezione
+     *
      * Correttezza: se n è negativo solleva NegativeArraySizeException altrimenti
-     * inizializza sempre la coda vuota di dimensione n = [ elements[i] | head <= i
-     * < tail ] = [elements[head], elements[head+1], ..., elements[tail-1]] dato che
-     * head è -1 e tail è 0
+     * inizializza sempre la coda vuota di dimensione n = [ elements[i & mask] |
+     * head <= i < tail ] = [] dato che head = tail
      */
     public IntQueue(int n) {
-        elements = new int[n];
-        head = -1;
+        if (n < 0)
+            throw new NegativeArraySizeException(Integer.toString(n));
+        if (n > 1 << 30)
+            throw new IllegalArgumentException("Capienza massima 2^30");
+        int length = 1;
+        while (length < n)
+            length <<= 1;
+        elements = new int[length];
+        capacity = n;
+        mask = length - 1;
+        head = 0;
         tail = 0;
 
         assert repOK();
@@ -93,73 +111,126 @@ public class IntQueue {
     // Metodi
     /**
      * Effetti collaterali: this è modificato se la coda non è piena
-     * 
+     *
      * Post-condizioni: Aggiunge l'elemento x alla coda this e solleva un'eccezione
      * di tipo FullException se la coda è piena this_post = this + [x]
-     * 
+     *
      * Preservazione RI: se la coda è piena viene sollevata un'eccezione altrimenti
-     * se la coda è vuota head viene inizializzato a 0 oppure non viene modificato
-     * quindi è sempre compreso fra -1 e size. tail viene calcolato come modulo
-     * sulla dimensione della coda del valore precedente di tail incrementato di
-     * uno, questo valore è sempre compreso fra 0 e size
-     * 
-     * Correttezza: ?
+     * tail viene incrementato di uno e tail - head resta al più capacity
+     *
+     * Correttezza: l'elemento viene scritto nella prima posizione disponibile
+     * elements[tail & mask], che dopo l'incremento di tail è l'ultima della coda
      */
     public void enqueue(int x) {
         if (isFull())
             throw new FullException("Impossibile aggiungere elemento. Coda piena.");
-        if (isEmpty())
-            head = 0;
-        elements[tail] = x;
-        tail = (tail + 1) % elements.length;
+        elements[tail & mask] = x;
+        tail++;
+
+        assert repOK();
+    }
+
+    /**
+     * Effetti collaterali: this è modificato se len è maggiore di 0
+     *
+     * Post-condizioni: Aggiunge in ordine alla coda this gli elementi src[off],
+     * ..., src[off+len-1], this_post = this + [src[off], ..., src[off+len-1]].
+     * Solleva FullException, senza modificare this, se non c'è posto per tutti
+     * gli elementi, NullPointerException se src è null e
+     * IndexOutOfBoundsException se l'intervallo non è contenuto in src
+     *
+     * Preservazione RI: tail viene incrementato di len solo se tail - head + len
+     * <= capacity
+     *
+     * Correttezza: gli elementi vengono copiati in al più due segmenti contigui:
+     * dalla prima posizione disponibile alla fine di elements, e dall'inizio di
+     * elements per la parte restante
+     */
+    public void enqueueAll(int[] src, int off, int len) {
+        Objects.requireNonNull(src);
+        Objects.checkFromIndexSize(off, len, src.length);
+        if (len > capacity - size())
+            throw new FullException("Impossibile aggiungere " + len + " elementi. Coda piena.");
+        int start = tail & mask;
+        int first = Math.min(len, elements.length - start);
+        System.arraycopy(src, off, elements, start, first);
+        System.arraycopy(src, off + first, elements, 0, len - first);
+        tail += len;
 
         assert repOK();
     }
 
     /**
      * Effetti collaterali: this è modificato se la coda non è vuota
-     * 
+     *
      * Post-condizioni: Rimuove e restituisce l'elemento in testa alla coda this, se
-     * presente. e solleva un'eccezione di tipo FullException se la coda è piena
+     * presente. e solleva un'eccezione di tipo EmptyException se la coda è vuota
      * this = [x1, x2, ..., x_k], k < n, this = [x2, ..., x_k]
-     * 
+     *
      * Preservazione RI: la rimozione di un elemento non può mai risultare in un
      * incremento del numero di elementi quindi la coda non conterrà più elementi
      * della sua dimensione massima
-     * 
-     * Correttezza: ?
+     *
+     * Correttezza: l'elemento in testa è elements[head & mask], dopo
+     * l'incremento di head la testa è l'elemento successivo
      */
     public int dequeue() {
         if (isEmpty())
             throw new EmptyException("Impossibile estrarre elemento. Coda vuota.");
-        int r = elements[head];
-        head = (head + 1) % elements.length;
-        if (head == tail) {
-            head = -1;
-            tail = 0;
-        }
+        int r = elements[head & mask];
+        head++;
 
         assert repOK();
 
         return r;
     }
 
+    /**
+     * Effetti collaterali: this è modificato se la coda non è vuota e max è
+     * maggiore di 0
+     *
+     * Post-condizioni: Rimuove i primi n elementi della coda this copiandoli in
+     * ordine in dst[0], ..., dst[n-1] e restituisce n, dove n è il minimo fra
+     * size(), max e dst.length. Solleva NullPointerException se dst è null e
+     * IllegalArgumentException se max è negativo
+     *
+     * Preservazione RI: head viene incrementato di n <= tail - head
+     *
+     * Correttezza: come in enqueueAll gli elementi occupano al più due segmenti
+     * contigui di elements, che vengono copiati con due System.arraycopy
+     */
+    public int drainTo(int[] dst, int max) {
+        Objects.requireNonNull(dst);
+        if (max < 0)
+            throw new IllegalArgumentException("max deve essere maggiore o uguale a 0");
+        int n = Math.min(size(), Math.min(max, dst.length));
+        int start = head & mask;
+        int first = Math.min(n, elements.length - start);
+        System.arraycopy(elements, start, dst, 0, first);
+        System.arraycopy(elements, 0, dst, first, n - first);
+        head += n;
+
+        assert repOK();
+
+        return n;
+    }
+
     /**
      * Post-condizioni: restituisce true se la coda this è piena.
-     * 
-     * Correttezza: la coda è piena quando head e tail coincidono
+     *
+     * Correttezza: la coda è piena quando contiene capacity elementi
      */
     public boolean isFull() {
-        return head == tail;
+        return tail - head == capacity;
     }
 
     /**
      * Post-condizioni: restituisce true se la coda this è vuota.
-     * 
-     * Correttezza: se la coda è vuota allora head == -1 e di conseguenza tail = 0
+     *
+     * Correttezza: se la coda è vuota allora i due contatori coincidono
      */
     public boolean isEmpty() {
-        return head == -1;
+        return head == tail;
     }
 
     /**
@@ -167,17 +238,13 @@ public class IntQueue {
      * valida
      */
     private boolean repOK() {
-        return size() <= elements.length && elements != null && head >= -1 && head < elements.length && tail >= 0
-                && tail < elements.length && (head != -1 || tail == 0);
+        return elements != null && Integer.bitCount(elements.length) == 1 && elements.length >= capacity
+                && mask == elements.length - 1 && tail - head >= 0 && tail - head <= capacity;
     }
 
     /** Post-condizioni: restituisce il numero di elementi contenuti in this */
     public int size() {
-        if (isEmpty())
-            return 0;
-        if (isFull())
-            return elements.length;
-        return (tail - head + elements.length) % elements.length;
+        return tail - head;
     }
 
     @Override
@@ -187,9 +254,9 @@ public class IntQueue {
         String r = "IntQueue : [";
         if (!isEmpty()) {
             int i;
-            for (i = 0; i < size() - 1; i++)
-                r += elements[(head + i) % elements.length] + ", ";
-            r += elements[(head + i) % elements.length];
+            for (i = head; i != tail - 1; i++)
+                r += elements[i & mask] + ", ";
+            r += elements[i & mask];
         }
         return r + "]";
     }
@@ -200,10 +267,10 @@ public class IntQueue {
             return false;
         IntQueue other = (IntQueue) obj;
 
-        if (size() != other.size() || elements.length != other.elements.length)
+        if (size() != other.size() || capacity != other.capacity)
             return false;
         for (int i = 0; i < size(); i++)
-            if (elements[(head + i) % elements.length] != other.elements[(other.head + i) % elements.length])
+            if (elements[(head + i) & mask] != other.elements[(other.head + i) & other.mask])
                 return false;
 
         return true;
@@ -213,8 +280,8 @@ public class IntQueue {
     public int hashCode() {
         int hash = Integer.hashCode(size());
         for (int i = 0; i < size(); i++)
-            hash = 31 * hash + Integer.hashCode(elements[(head + i) % elements.length]);
+            hash = 31 * hash + Integer.hashCode(elements[(head + i) & mask]);
 
         return hash;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,469 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * OVERVIEW: Le istanze di questa classe rappresentano code (limitate) di
+ * interi, come IntQueue, il cui contenuto sopravvive al riavvio del programma.
+ * Gli oggetti di questo tipo sono mutabili. Una coda tipica è [x_1, x_2, ...,
+ * x_k], in cui k è minore o uguale alla capienza della coda.
+ *
+ * Ogni enqueue e ogni dequeue aggiunge un record a un journal, diviso in
+ * segmenti: file della cartella directory con nome crescente, ognuno con
+ * un'intestazione che contiene il numero di elementi estratti e inseriti fino
+ * alla sua creazione. I record vengono accumulati in memoria e scritti su
+ * disco con un'unica force ogni groupCommit record (o quando viene invocato
+ * sync), quindi dopo un crash si perdono al più le ultime operazioni non
+ * ancora sincronizzate. Un segmento viene eliminato quando tutti gli elementi
+ * che vi sono stati inseriti sono stati estratti. All'apertura il costruttore
+ * rilegge i segmenti e ricostruisce la coda, ignorando un eventuale record
+ * incompleto in fondo all'ultimo segmento. Ogni operazione modifica la coda in
+ * memoria solo dopo aver aggiunto il suo record al journal; se una scrittura
+ * non riesce la coda in memoria e quella su disco potrebbero non coincidere,
+ * quindi this rifiuta ogni altra operazione e va riaperta dalla cartella.
+ *
+ * Garanzia di durata: quando sync, o un'operazione che riempie il gruppo,
+ * termina senza eccezioni, tutte le operazioni precedenti sopravvivono a un
+ * crash del sistema. Per questo ogni nuovo segmento viene forzato su disco,
+ * insieme alla voce della cartella che lo contiene, prima di ricevere record,
+ * e la cartella viene forzata di nuovo dopo l'eliminazione dei segmenti
+ * consumati.
+ *
+ * ABS FUN: AF(queue) = AF_IntQueue(queue)
+ *
+ * REP INV: queue != null, segments non è vuota e il suo ultimo elemento è il
+ * segmento aperto in channel, head - tail = -queue.size(), pending è il numero
+ * di record in batch, 0 <= pending < groupCommit, 0 <= segmentRecords <=
+ * SEGMENT_RECORDS, per ogni segmento tranne l'ultimo endTail è il numero di
+ * elementi inseriti alla creazione del segmento successivo. Se failure !=
+ * null batch è vuoto e pending == 0
+ */
+public class JournaledIntQueue implements Closeable {
+
+    /** Tipo del record scritto da enqueue */
+    private static final byte ENQUEUE = 'E';
+
+    /** Tipo del record scritto da dequeue */
+    private static final byte DEQUEUE = 'D';
+
+    /** Numero che identifica l'intestazione di un segmento */
+    private static final int MAGIC = 0x4A514E4C;
+
+    /** Byte dell'intestazione: MAGIC, head, tail e checksum */
+    private static final int HEADER_BYTES = 4 + 8 + 8 + 4;
+
+    /** Byte di un record: tipo, valore e checksum */
+    private static final int RECORD_BYTES = 1 + 4 + 4;
+
+    /** Numero massimo di record di un segmento */
+    private static final int SEGMENT_RECORDS = 1 << 16;
+
+    /** Estensione dei file dei segmenti */
+    private static final String SUFFIX = ".journal";
+
+    /** Contenuto della coda */
+    private final IntQueue queue;
+
+    /** Cartella dei segmenti */
+    private final Path directory;
+
+    /** Numero di record scritti con una sola force */
+    private final int groupCommit;
+
+    /** Segmenti presenti su disco, dal più vecchio al più recente */
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+
+    /** Record non ancora scritti su disco */
+    private final ByteBuffer batch;
+
+    /** Usato per calcolare le checksum */
+    private final CRC32 crc = new CRC32();
+
+    /** Canale aperto sull'ultimo segmento */
+    private FileChannel channel;
+
+    /** Numero di elementi estratti e inseriti dalla creazione della coda */
+    private long head, tail;
+
+    /** Numero di record in batch */
+    private int pending;
+
+    /** Numero di record nell'ultimo segmento, compresi quelli in batch */
+    private int segmentRecords;
+
+    /** Numero del prossimo segmento da creare */
+    private long nextSegment;
+
+    /** Errore della scrittura non riuscita, null se il journal è integro */
+    private IOException failure;
+
+    /**
+     * Post-condizioni: Inizializza this affinché rappresenti la coda di capienza
+     * n salvata nella cartella directory, vuota se la cartella non contiene
+     * segmenti, e che scrive su disco i record a gruppi di groupCommit. Solleva
+     * IllegalArgumentException se groupCommit non è positivo, IOException se la
+     * cartella non è accessibile, se un segmento diverso dall'ultimo è
+     * danneggiato o se il journal contiene più di n elementi, e
+     * NegativeArraySizeException se n è negativo
+     */
+    public JournaledIntQueue(Path directory, int n, int groupCommit) throws IOException {
+        Objects.requireNonNull(directory);
+        if (groupCommit <= 0)
+            throw new IllegalArgumentException("groupCommit deve essere maggiore di 0");
+        this.queue = new IntQueue(n);
+        this.directory = Files.createDirectories(directory);
+        this.groupCommit = groupCommit;
+        this.batch = ByteBuffer.allocate(groupCommit * RECORD_BYTES);
+        recover();
+
+        assert repOK();
+    }
+
+    /**
+     * Effetti collaterali: this è modificato se la coda non è piena
+     *
+     * Post-condizioni: Aggiunge l'elemento x alla coda this e solleva
+     * un'eccezione di tipo FullException se la coda è piena, come
+     * IntQueue.enqueue. Solleva UncheckedIOException se la scrittura del journal
+     * non riesce, e in quel caso this non è modificato, e IllegalStateException
+     * se una scrittura precedente non è riuscita
+     */
+    public void enqueue(int x) {
+        checkNotFailed();
+        if (queue.isFull())
+            throw new FullException("Impossibile aggiungere elemento. Coda piena.");
+        append(ENQUEUE, x);
+        queue.enqueue(x);
+        tail++;
+
+        assert repOK();
+    }
+
+    /**
+     * Effetti collaterali: this è modificato se la coda non è vuota
+     *
+     * Post-condizioni: Rimuove e restituisce l'elemento in testa alla coda this e
+     * solleva un'eccezione di tipo EmptyException se la coda è vuota, come
+     * IntQueue.dequeue. Solleva UncheckedIOException se la scrittura del journal
+     * non riesce, e in quel caso this non è modificato, e IllegalStateException
+     * se una scrittura precedente non è riuscita
+     */
+    public int dequeue() {
+        checkNotFailed();
+        if (queue.isEmpty())
+            throw new EmptyException("Impossibile estrarre elemento. Coda vuota.");
+        append(DEQUEUE, 0);
+        int r = queue.dequeue();
+        head++;
+
+        assert repOK();
+
+        return r;
+    }
+
+    /**
+     * Effetti collaterali: scrive su disco i record in attesa ed elimina i
+     * segmenti consumati
+     *
+     * Post-condizioni: al termine tutte le operazioni eseguite su this
+     * sopravvivono a un crash. Solleva IOException se la scrittura non riesce, e
+     * IllegalStateException se una scrittura precedente non è riuscita
+     */
+    public void sync() throws IOException {
+        checkNotFailed();
+        commit();
+    }
+
+    /**
+     * Effetti collaterali: scrive su disco i record in attesa e chiude l'ultimo
+     * segmento, this non può più essere modificato
+     *
+     * Post-condizioni: solleva IOException se la scrittura non riesce. Se una
+     * scrittura precedente non è riuscita chiude il segmento senza scrivere
+     */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen())
+            return;
+        try {
+            if (failure == null)
+                commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /** Post-condizioni: restituisce true se la coda this è piena */
+    public boolean isFull() {
+        return queue.isFull();
+    }
+
+    /** Post-condizioni: restituisce true se la coda this è vuota */
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /** Post-condizioni: restituisce il numero di elementi contenuti in this */
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public String toString() {
+        return queue.toString();
+    }
+
+    /**
+     * Post-condizioni: solleva IllegalStateException se una scrittura precedente
+     * del journal non è riuscita
+     */
+    private void checkNotFailed() {
+        if (failure != null)
+            throw new IllegalStateException("Journal non scritto, riaprire la coda", failure);
+    }
+
+    /**
+     * Effetti collaterali: aggiunge un record a batch, e se necessario scrive
+     * batch su disco o crea un nuovo segmento
+     */
+    private void append(byte type, int value) {
+        try {
+            if (segmentRecords == SEGMENT_RECORDS)
+                rollOver();
+            batch.put(type).putInt(value).putInt(checksum(type, value));
+            segmentRecords++;
+            if (++pending == groupCommit)
+                commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(fail(e));
+        }
+    }
+
+    /**
+     * Effetti collaterali: scrive batch nell'ultimo segmento con una sola force,
+     * poi elimina i segmenti i cui elementi sono stati tutti estratti. I segmenti
+     * vengono eliminati solo dopo la force, così il journal su disco contiene
+     * sempre i record dequeue che li rendono inutili
+     */
+    private void commit() throws IOException {
+        try {
+            if (pending > 0) {
+                batch.flip();
+                while (batch.hasRemaining())
+                    channel.write(batch);
+                batch.clear();
+                channel.force(false);
+                pending = 0;
+            }
+            boolean deleted = false;
+            while (segments.size() > 1 && head >= segments.peekFirst().endTail) {
+                Files.delete(segments.removeFirst().file);
+                deleted = true;
+            }
+            if (deleted)
+                forceDirectory();
+        } catch (IOException e) {
+            throw fail(e);
+        }
+    }
+
+    /**
+     * Effetti collaterali: svuota batch e registra e in failure, dato che dopo
+     * una scrittura non riuscita non si sa quali record siano arrivati su disco
+     *
+     * Post-condizioni: restituisce e
+     */
+    private IOException fail(IOException e) {
+        batch.clear();
+        pending = 0;
+        if (failure == null)
+            failure = e;
+        return e;
+    }
+
+    /**
+     * Effetti collaterali: chiude l'ultimo segmento dopo averlo scritto su disco e
+     * ne crea uno nuovo
+     */
+    private void rollOver() throws IOException {
+        commit();
+        channel.close();
+        segments.peekLast().endTail = tail;
+        createSegment();
+    }
+
+    /**
+     * Effetti collaterali: crea un nuovo segmento, vi scrive l'intestazione con i
+     * valori correnti di head e tail e lo apre in channel. Il file e la voce
+     * della cartella vengono forzati su disco prima che il segmento riceva
+     * record, altrimenti un crash potrebbe far sparire il segmento con i record
+     * già sincronizzati
+     */
+    private void createSegment() throws IOException {
+        Path file = directory.resolve(String.format("%019d", nextSegment++) + SUFFIX);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putLong(head).putLong(tail);
+        crc.reset();
+        crc.update(header.array(), 0, HEADER_BYTES - 4);
+        header.putInt((int) crc.getValue()).flip();
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        while (header.hasRemaining())
+            channel.write(header);
+        channel.force(true);
+        forceDirectory();
+        segments.addLast(new Segment(file));
+        segmentRecords = 0;
+    }
+
+    /**
+     * Effetti collaterali: forza su disco la cartella directory, cioè la
+     * creazione e l'eliminazione dei file dei segmenti
+     */
+    private void forceDirectory() throws IOException {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        }
+    }
+
+    /**
+     * Effetti collaterali: ricostruisce queue, head e tail rileggendo i segmenti
+     * di directory in ordine, tronca l'ultimo segmento dopo l'ultimo record
+     * valido e lo apre in channel. Gli elementi inseriti prima del primo segmento
+     * rimasto sono già stati tutti estratti, quindi i record dequeue che li
+     * riguardano non modificano queue
+     */
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : stream)
+                files.add(file);
+        }
+        Collections.sort(files);
+
+        long firstTail = -1;
+        int validBytes = 0;
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            boolean last = i == files.size() - 1;
+            ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+            nextSegment = Long.parseLong(file.getFileName().toString().replace(SUFFIX, "")) + 1;
+
+            if (!validHeader(bytes)) {
+                // Crash durante la creazione del segmento: non contiene record
+                if (!last)
+                    throw new IOException("Journal danneggiato: " + file);
+                Files.delete(file);
+                forceDirectory();
+                break;
+            }
+            long segmentHead = bytes.getLong(4);
+            long segmentTail = bytes.getLong(12);
+            if (firstTail < 0) {
+                head = segmentHead;
+                tail = firstTail = segmentTail;
+            } else if (segmentHead != head || segmentTail != tail) {
+                throw new IOException("Journal danneggiato: " + file);
+            } else {
+                segments.peekLast().endTail = tail;
+            }
+
+            segmentRecords = 0;
+            bytes.position(HEADER_BYTES);
+            while (bytes.remaining() >= RECORD_BYTES) {
+                byte type = bytes.get();
+                int value = bytes.getInt();
+                if ((type != ENQUEUE && type != DEQUEUE) || bytes.getInt() != checksum(type, value))
+                    break;
+                if (type == ENQUEUE) {
+                    if (queue.isFull())
+                        throw new IOException("Il journal contiene più elementi della capienza");
+                    queue.enqueue(value);
+                    tail++;
+                } else {
+                    if (head >= firstTail) {
+                        if (queue.isEmpty())
+                            throw new IOException("Journal danneggiato: " + file);
+                        queue.dequeue();
+                    }
+                    head++;
+                }
+                segmentRecords++;
+            }
+            validBytes = HEADER_BYTES + segmentRecords * RECORD_BYTES;
+            if (validBytes != bytes.limit() && !last)
+                throw new IOException("Journal danneggiato: " + file);
+            segments.addLast(new Segment(file));
+        }
+        if (head < firstTail)
+            throw new IOException("Journal danneggiato: mancano elementi non ancora estratti");
+
+        if (segments.isEmpty()) {
+            createSegment();
+        } else {
+            channel = FileChannel.open(segments.peekLast().file, StandardOpenOption.WRITE);
+            // Elimino un eventuale record incompleto lasciato da un crash
+            channel.truncate(validBytes);
+            channel.position(validBytes);
+        }
+        commit();
+    }
+
+    /** Post-condizioni: restituisce true se bytes inizia con un'intestazione valida */
+    private boolean validHeader(ByteBuffer bytes) {
+        if (bytes.limit() < HEADER_BYTES || bytes.getInt(0) != MAGIC)
+            return false;
+        crc.reset();
+        crc.update(bytes.array(), 0, HEADER_BYTES - 4);
+        return bytes.getInt(HEADER_BYTES - 4) == (int) crc.getValue();
+    }
+
+    /** Post-condizioni: restituisce la checksum del record (type, value) */
+    private int checksum(byte type, int value) {
+        crc.reset();
+        crc.update(type);
+        crc.update(value >>> 24);
+        crc.update(value >>> 16);
+        crc.update(value >>> 8);
+        crc.update(value);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Post-condizioni: restituisce true se l'invariante di rappresentazione è
+     * valida
+     */
+    private boolean repOK() {
+        return queue != null && !segments.isEmpty() && tail - head == queue.size() && pending >= 0
+                && pending < groupCommit && batch.position() == pending * RECORD_BYTES && segmentRecords >= 0
+                && segmentRecords <= SEGMENT_RECORDS;
+    }
+
+    /** Segmento del journal */
+    private static final class Segment {
+        /** File del segmento */
+        private final Path file;
+
+        /**
+         * Numero di elementi inseriti alla creazione del segmento successivo,
+         * Long.MAX_VALUE per l'ultimo segmento
+         */
+        private long endTail = Long.MAX_VALUE;
+
+        Segment(Path file) {
+            this.file = file;
+        }
+    }
+}
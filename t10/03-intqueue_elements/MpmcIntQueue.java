@@ -0,0 +1,381 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OVERVIEW: Le istanze di questa classe rappresentano code (limitate) di
+ * interi che possono essere usate contemporaneamente da più produttori e più
+ * consumatori. Gli oggetti di questo tipo sono mutabili. Una coda tipica è
+ * [x_1, x_2, ..., x_k], in cui k è minore o uguale alla capienza della coda, e
+ * come IntQueue opera in modalità FIFO. La capienza è esattamente quella
+ * richiesta; l'array circolare ha invece lunghezza pari alla più piccola
+ * potenza di 2 maggiore o uguale alla capienza e ad almeno 2: con una sola
+ * posizione la sequenza "scrivibile dal biglietto pos + 1" coinciderebbe con
+ * "leggibile dal biglietto pos". Se l'array è più lungo della capienza offer
+ * confronta anche i due biglietti, come IntQueue confronta size e capacity.
+ *
+ * Ogni posizione dell'array ha un proprio numero di sequenza che indica se è
+ * pronta per essere scritta dal produttore con biglietto pos (sequenza == pos)
+ * o letta dal consumatore con biglietto pos (sequenza == pos + 1). Produttori e
+ * consumatori si contendono solo il rispettivo contatore, con un
+ * compare-and-set, e non usano lock: offer e poll non si bloccano mai. put,
+ * take e poll con timeout riprovano per qualche giro in attesa attiva e cedendo
+ * il processore, poi si registrano in putters o takers e si sospendono su
+ * notFull o notEmpty, che con i virtual thread libera il thread della
+ * piattaforma. Dopo ogni inserimento (estrazione) riuscito, se takers (putters)
+ * è positivo viene svegliato un consumatore (produttore) in attesa, quindi un
+ * thread sospeso riparte appena la coda cambia; senza thread in attesa offer e
+ * poll non prendono mai il lock né eseguono barriere oltre al compare-and-set.
+ *
+ * ABS FUN: AF(values, dequeuePos, enqueuePos) = [ values[i & mask] |
+ * dequeuePos.value <= i < enqueuePos.value ]
+ *
+ * REP INV: values.length == sequences.length è una potenza di 2 maggiore o
+ * uguale a 2 e a capacity, mask = values.length - 1, 0 <= enqueuePos.value -
+ * dequeuePos.value <= capacity, per ogni posizione i sequences[i] è
+ * congruo a i oppure a i + 1 modulo values.length, takers e putters sono il
+ * numero di thread fra la registrazione e l'uscita dall'attesa su notEmpty e
+ * notFull
+ */
+public class MpmcIntQueue {
+
+    /** Accesso con semantica acquire/release agli elementi di sequences */
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /** Valore restituito da tryPoll se la coda è vuota, diverso da ogni int */
+    private static final long EMPTY = -1L;
+
+    /**
+     * Numero di attese attive prima di cedere il processore, e di cessioni prima
+     * di sospendersi sulla condizione
+     */
+    private static final int SPINS = 64;
+
+
+    /** Gli elementi della coda */
+    private final int[] values;
+
+    /** Il numero di sequenza di ogni posizione di values */
+    private final long[] sequences;
+
+    /** La maschera values.length - 1 */
+    private final int mask;
+
+    /** Il numero massimo di elementi della coda */
+    private final int capacity;
+
+    /** Valore restituito da poll quando la coda è vuota */
+    private final int emptyValue;
+
+    /** Biglietto del prossimo produttore */
+    private final PaddedCounter enqueuePos = new PaddedCounter();
+
+    /** Biglietto del prossimo consumatore */
+    private final PaddedCounter dequeuePos = new PaddedCounter();
+
+    /** Lock delle attese di put, take e poll con timeout */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Condizione su cui attendono i consumatori quando la coda è vuota */
+    private final Condition notEmpty = lock.newCondition();
+
+    /** Condizione su cui attendono i produttori quando la coda è piena */
+    private final Condition notFull = lock.newCondition();
+
+    /** Numero di consumatori in attesa su notEmpty, modificato solo con lock */
+    private volatile int takers;
+
+    /** Numero di produttori in attesa su notFull, modificato solo con lock */
+    private volatile int putters;
+
+    /**
+     * Post-condizioni: Inizializza this affinché rappresenti una coda vuota con
+     * capienza n, in cui poll restituisce emptyValue se non ci sono elementi.
+     * Solleva
+     * IllegalArgumentException se n non è compreso fra 1 e 2^30
+     */
+    public MpmcIntQueue(int n, int emptyValue) {
+        if (n < 1 || n > 1 << 30)
+            throw new IllegalArgumentException("La capienza deve essere compresa fra 1 e 2^30");
+        int length = 2;
+        while (length < n)
+            length <<= 1;
+        values = new int[length];
+        sequences = new long[length];
+        for (int i = 0; i < length; i++)
+            sequences[i] = i;
+        mask = length - 1;
+        capacity = n;
+        this.emptyValue = emptyValue;
+    }
+
+    /**
+     * Effetti collaterali: this è modificato se la coda non è piena
+     *
+     * Post-condizioni: Aggiunge x alla coda this e restituisce true, oppure
+     * restituisce false senza modificare this se la coda è piena
+     */
+    public boolean offer(int x) {
+        long pos = enqueuePos.getAcquire();
+        while (true) {
+            int index = (int) pos & mask;
+            long seq = (long) SEQUENCE.getAcquire(sequences, index);
+            long dif = seq - pos;
+            if (dif == 0) {
+                // Con l'array più lungo della capienza la posizione libera non basta
+                if (capacity != values.length && pos - dequeuePos.getAcquire() >= capacity)
+                    return false;
+                if (enqueuePos.compareAndSet(pos, pos + 1)) {
+                    values[index] = x;
+                    // Rendo la posizione leggibile dal consumatore con biglietto pos
+                    SEQUENCE.setRelease(sequences, index, pos + 1);
+                    // Vedi signal: il compare-and-set precede la lettura di takers
+                    if (takers > 0)
+                        signal(notEmpty);
+                    return true;
+                }
+                pos = enqueuePos.getAcquire();
+            } else if (dif < 0) {
+                // La posizione contiene ancora un elemento di un giro precedente
+                return false;
+            } else {
+                pos = enqueuePos.getAcquire();
+            }
+        }
+    }
+
+    /**
+     * Effetti collaterali: this è modificato se la coda non è vuota
+     *
+     * Post-condizioni: Rimuove e restituisce l'elemento in testa alla coda this,
+     * oppure restituisce emptyValue senza modificare this se la coda è vuota. Se
+     * emptyValue può essere un elemento della coda conviene usare dequeue
+     */
+    public int poll() {
+        long r = tryPoll();
+        return r == EMPTY ? emptyValue : (int) r;
+    }
+
+    /**
+     * Effetti collaterali: this è modificato se la coda non è piena
+     *
+     * Post-condizioni: Aggiunge l'elemento x alla coda this e solleva
+     * un'eccezione di tipo FullException se la coda è piena, come
+     * IntQueue.enqueue
+     */
+    public void enqueue(int x) {
+        if (!offer(x))
+            throw new FullException("Impossibile aggiungere elemento. Coda piena.");
+    }
+
+    /**
+     * Effetti collaterali: this è modificato se la coda non è vuota
+     *
+     * Post-condizioni: Rimuove e restituisce l'elemento in testa alla coda this e
+     * solleva un'eccezione di tipo EmptyException se la coda è vuota, come
+     * IntQueue.dequeue
+     */
+    public int dequeue() {
+        long r = tryPoll();
+        if (r == EMPTY)
+            throw new EmptyException("Impossibile estrarre elemento. Coda vuota.");
+        return (int) r;
+    }
+
+    /**
+     * Effetti collaterali: this è modificato
+     *
+     * Post-condizioni: Aggiunge x alla coda this, attendendo che si liberi una
+     * posizione se la coda è piena. Solleva InterruptedException, senza
+     * modificare this, se il thread viene interrotto durante l'attesa
+     */
+    public void put(int x) throws InterruptedException {
+        for (int round = 0; round < 2 * SPINS; round++) {
+            if (offer(x))
+                return;
+            spin(round);
+        }
+        lock.lockInterruptibly();
+        try {
+            putters++;
+            // Vedi signal: la barriera ordina putters prima del nuovo tentativo
+            VarHandle.fullFence();
+            while (!offer(x)) {
+                if (size() < capacity)
+                    // Un'estrazione ha preso il biglietto e sta liberando la posizione
+                    Thread.yield();
+                else
+                    notFull.await();
+            }
+            // Passo il segnale a un altro produttore se ci sono ancora posizioni libere
+            if (putters > 1 && size() < capacity())
+                notFull.signal();
+        } finally {
+            putters--;
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Effetti collaterali: this è modificato
+     *
+     * Post-condizioni: Rimuove e restituisce l'elemento in testa alla coda this,
+     * attendendo che ne arrivi uno se la coda è vuota. Solleva
+     * InterruptedException, senza modificare this, se il thread viene interrotto
+     * durante l'attesa
+     */
+    public int take() throws InterruptedException {
+        return (int) awaitPoll(false, 0);
+    }
+
+    /**
+     * Effetti collaterali: this è modificato se arriva un elemento entro il tempo
+     * indicato
+     *
+     * Post-condizioni: Rimuove e restituisce l'elemento in testa alla coda this,
+     * attendendo al più timeout (nell'unità unit) che ne arrivi uno. Restituisce
+     * emptyValue se il tempo scade. Solleva InterruptedException se il thread
+     * viene interrotto durante l'attesa
+     */
+    public int poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long r = awaitPoll(true, unit.toNanos(timeout));
+        return r == EMPTY ? emptyValue : (int) r;
+    }
+
+    /**
+     * Post-condizioni: restituisce il numero di elementi contenuti in this. Se
+     * altri thread stanno modificando la coda il valore può essere già superato,
+     * ma è sempre compreso fra 0 e la capienza
+     */
+    public int size() {
+        long dequeued = dequeuePos.getAcquire();
+        long enqueued = enqueuePos.getAcquire();
+        return (int) Math.max(0, Math.min(capacity, enqueued - dequeued));
+    }
+
+    /** Post-condizioni: restituisce true se la coda this è vuota */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Post-condizioni: restituisce la capienza massima della coda this */
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "MpmcIntQueue : size = " + size() + ", capacity = " + capacity();
+    }
+
+    /**
+     * Effetti collaterali: this è modificato se la coda non è vuota
+     *
+     * Post-condizioni: Rimuove l'elemento in testa alla coda this e lo
+     * restituisce convertito in long senza segno, oppure restituisce EMPTY se la
+     * coda è vuota
+     */
+    private long tryPoll() {
+        long pos = dequeuePos.getAcquire();
+        while (true) {
+            int index = (int) pos & mask;
+            long seq = (long) SEQUENCE.getAcquire(sequences, index);
+            long dif = seq - (pos + 1);
+            if (dif == 0) {
+                if (dequeuePos.compareAndSet(pos, pos + 1)) {
+                    int r = values[index];
+                    // Rendo la posizione scrivibile dal produttore del giro successivo
+                    SEQUENCE.setRelease(sequences, index, pos + mask + 1);
+                    if (putters > 0)
+                        signal(notFull);
+                    return r & 0xFFFFFFFFL;
+                }
+                pos = dequeuePos.getAcquire();
+            } else if (dif < 0) {
+                // Il produttore di questa posizione non ha ancora scritto
+                return EMPTY;
+            } else {
+                pos = dequeuePos.getAcquire();
+            }
+        }
+    }
+
+    /**
+     * Effetti collaterali: this è modificato se arriva un elemento in tempo
+     *
+     * Post-condizioni: come tryPoll, attendendo che arrivi un elemento, al più
+     * nanos nanosecondi se timed è true; restituisce EMPTY se il tempo scade.
+     * Solleva InterruptedException se il thread viene interrotto durante
+     * l'attesa
+     */
+    private long awaitPoll(boolean timed, long nanos) throws InterruptedException {
+        long r;
+        for (int round = 0; round < 2 * SPINS; round++) {
+            if ((r = tryPoll()) != EMPTY)
+                return r;
+            spin(round);
+        }
+        lock.lockInterruptibly();
+        try {
+            takers++;
+            // Vedi signal: la barriera ordina takers prima del nuovo tentativo
+            VarHandle.fullFence();
+            while ((r = tryPoll()) == EMPTY) {
+                if (!isEmpty()) {
+                    // Un inserimento ha preso il biglietto e sta pubblicando l'elemento
+                    Thread.yield();
+                } else if (!timed) {
+                    notEmpty.await();
+                } else if (nanos <= 0) {
+                    return EMPTY;
+                } else {
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+            }
+            // Passo il segnale a un altro consumatore se ci sono ancora elementi
+            if (takers > 1 && !isEmpty())
+                notEmpty.signal();
+            return r;
+        } finally {
+            takers--;
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Effetti collaterali: attende brevemente in modo attivo nei primi SPINS giri,
+     * poi cede il processore
+     */
+    private static void spin(int round) {
+        if (round < SPINS)
+            Thread.onSpinWait();
+        else
+            Thread.yield();
+    }
+
+    /**
+     * Effetti collaterali: sveglia un thread in attesa su condition
+     *
+     * Correttezza: offer (tryPoll) avanza enqueuePos (dequeuePos) con un
+     * compare-and-set, che è una barriera completa, e solo dopo legge takers
+     * (putters); chi attende incrementa il contatore, esegue una barriera
+     * completa e poi, tenendo il lock, confronta i due biglietti prima di
+     * sospendersi. Le barriere impediscono che entrambi leggano il valore
+     * vecchio dell'altro: o il segnalatore vede il contatore positivo e, dovendo
+     * prendere il lock, segnala solo quando l'altro thread è già in await, o chi
+     * attende vede il biglietto avanzato e cede il processore finché la
+     * posizione non viene pubblicata (liberata), cosa che il segnalatore fa
+     * prima di prendere il lock. Il percorso veloce non paga così nessuna
+     * barriera oltre al compare-and-set
+     */
+    private void signal(Condition condition) {
+        lock.lock();
+        try {
+            condition.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * OVERVIEW: contatore long mutabile condiviso fra thread, isolato su una
+ * propria linea di cache da campi di riempimento posti prima e dopo, così che
+ * due contatori scritti da thread diversi non si disturbino a vicenda (false
+ * sharing). Il riempimento passa per la gerarchia di classi perché i campi di
+ * una superclasse sono disposti prima di quelli delle sottoclassi.
+ *
+ * value è il valore del contatore, cache è un campo a disposizione del thread
+ * proprietario (ad esempio l'ultimo valore letto del contatore di un altro
+ * thread). Le letture e scritture dirette dei campi sono ordinarie; per
+ * pubblicare un valore ad altri thread si usano i metodi di questa classe
+ */
+final class PaddedCounter extends CounterFields {
+    long p11, p12, p13, p14, p15, p16, p17, p18;
+
+    /** Accesso con semantica acquire/release e atomica al campo value */
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(CounterFields.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Post-condizioni: restituisce value con una lettura acquire */
+    long getAcquire() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    /** Effetti collaterali: scrive v in value con una scrittura release */
+    void setRelease(long v) {
+        VALUE.setRelease(this, v);
+    }
+
+    /**
+     * Effetti collaterali: se value vale expected lo sostituisce atomicamente con
+     * update
+     *
+     * Post-condizioni: restituisce true se la sostituzione è avvenuta
+     */
+    boolean compareAndSet(long expected, long update) {
+        return VALUE.compareAndSet(this, expected, update);
+    }
+}
+
+/** Campi di riempimento prima del contatore */
+abstract class CounterPadding {
+    long p01, p02, p03, p04, p05, p06, p07, p08;
+}
+
+/** Campi del contatore, disposti dopo quelli di CounterPadding */
+abstract class CounterFields extends CounterPadding {
+    long value;
+    long cache;
+}
@@ -0,0 +1,173 @@
+/**
+ * OVERVIEW: Le istanze di questa classe rappresentano code (limitate) di
+ * interi condivise fra esattamente due thread: un produttore, l'unico che
+ * inserisce elementi, e un consumatore, l'unico che li estrae. Gli oggetti di
+ * questo tipo sono mutabili. Una coda tipica è [x_1, x_2, ..., x_k], in cui k è
+ * minore o uguale alla capienza della coda, e come IntQueue opera in modalità
+ * FIFO.
+ *
+ * offer e poll non usano lock e terminano sempre in un numero limitato di
+ * passi (wait-free). Il produttore scrive l'elemento e poi pubblica il nuovo
+ * valore di tail con una scrittura release; il consumatore legge tail con una
+ * lettura acquire prima di leggere l'elemento, quindi vede sempre il valore
+ * scritto (e simmetricamente per head). I due contatori sono in oggetti
+ * separati e circondati da campi di riempimento, così non condividono la
+ * stessa linea di cache.
+ *
+ * ABS FUN: AF(elements, head, tail) = [ elements[i & mask] | head.value <= i <
+ * tail.value ]
+ *
+ * REP INV: elements.length è una potenza di 2 maggiore o uguale a capacity,
+ * mask = elements.length - 1, 0 <= tail.value - head.value <= capacity,
+ * tail.cache è un valore passato di head.value (quindi tail.cache <=
+ * head.value) e head.cache è un valore passato di tail.value (quindi
+ * head.value <= head.cache <= tail.value)
+ */
+public class SpscIntQueue {
+
+    /** La struttura dati contenente gli elementi, di lunghezza potenza di 2 */
+    private final int[] elements;
+
+    /** La capienza massima della coda */
+    private final int capacity;
+
+    /** La maschera elements.length - 1 */
+    private final int mask;
+
+    /** Valore restituito da poll quando la coda è vuota */
+    private final int emptyValue;
+
+    /**
+     * Numero di elementi estratti, scritto solo dal consumatore. head.cache è
+     * l'ultimo valore di tail letto dal consumatore
+     */
+    private final PaddedCounter head = new PaddedCounter();
+
+    /**
+     * Numero di elementi inseriti, scritto solo dal produttore. tail.cache è
+     * l'ultimo valore di head letto dal produttore
+     */
+    private final PaddedCounter tail = new PaddedCounter();
+
+    /**
+     * Post-condizioni: Inizializza this affinché rappresenti una coda vuota con
+     * dimensione massima n, in cui poll restituisce emptyValue se non ci sono
+     * elementi. Solleva NegativeArraySizeException se n è negativo
+     */
+    public SpscIntQueue(int n, int emptyValue) {
+        if (n < 0)
+            throw new NegativeArraySizeException(Integer.toString(n));
+        if (n > 1 << 30)
+            throw new IllegalArgumentException("Capienza massima 2^30");
+        int length = 1;
+        while (length < n)
+            length <<= 1;
+        elements = new int[length];
+        capacity = n;
+        mask = length - 1;
+        this.emptyValue = emptyValue;
+    }
+
+    /**
+     * Pre-condizioni: invocato solo dal thread produttore
+     *
+     * Effetti collaterali: this è modificato se la coda non è piena
+     *
+     * Post-condizioni: Aggiunge x alla coda this e restituisce true, oppure
+     * restituisce false senza modificare this se la coda è piena
+     */
+    public boolean offer(int x) {
+        long t = tail.value;
+        if (t - tail.cache == capacity) {
+            // La copia di head potrebbe essere vecchia: la aggiorno solo ora
+            tail.cache = head.getAcquire();
+            if (t - tail.cache == capacity)
+                return false;
+        }
+        elements[(int) t & mask] = x;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    /**
+     * Pre-condizioni: invocato solo dal thread consumatore
+     *
+     * Effetti collaterali: this è modificato se la coda non è vuota
+     *
+     * Post-condizioni: Rimuove e restituisce l'elemento in testa alla coda this,
+     * oppure restituisce emptyValue senza modificare this se la coda è vuota. Se
+     * emptyValue può essere un elemento della coda conviene usare dequeue
+     */
+    public int poll() {
+        long h = head.value;
+        if (h == head.cache) {
+            head.cache = tail.getAcquire();
+            if (h == head.cache)
+                return emptyValue;
+        }
+        int r = elements[(int) h & mask];
+        head.setRelease(h + 1);
+        return r;
+    }
+
+    /**
+     * Pre-condizioni: invocato solo dal thread produttore
+     *
+     * Effetti collaterali: this è modificato se la coda non è piena
+     *
+     * Post-condizioni: Aggiunge l'elemento x alla coda this e solleva
+     * un'eccezione di tipo FullException se la coda è piena, come
+     * IntQueue.enqueue
+     */
+    public void enqueue(int x) {
+        if (!offer(x))
+            throw new FullException("Impossibile aggiungere elemento. Coda piena.");
+    }
+
+    /**
+     * Pre-condizioni: invocato solo dal thread consumatore
+     *
+     * Effetti collaterali: this è modificato se la coda non è vuota
+     *
+     * Post-condizioni: Rimuove e restituisce l'elemento in testa alla coda this e
+     * solleva un'eccezione di tipo EmptyException se la coda è vuota, come
+     * IntQueue.dequeue
+     */
+    public int dequeue() {
+        long h = head.value;
+        if (h == head.cache) {
+            head.cache = tail.getAcquire();
+            if (h == head.cache)
+                throw new EmptyException("Impossibile estrarre elemento. Coda vuota.");
+        }
+        int r = elements[(int) h & mask];
+        head.setRelease(h + 1);
+        return r;
+    }
+
+    /**
+     * Post-condizioni: restituisce il numero di elementi contenuti in this. Se
+     * l'altro thread sta modificando la coda il valore può essere già superato,
+     * ma è sempre compreso fra 0 e la capienza
+     */
+    public int size() {
+        long h = head.getAcquire();
+        long t = tail.getAcquire();
+        return (int) Math.max(0, Math.min(capacity, t - h));
+    }
+
+    /** Post-condizioni: restituisce true se la coda this è vuota */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Post-condizioni: restituisce la capienza massima della coda this */
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "SpscIntQueue : size = " + size() + ", capacity = " + capacity;
+    }
+}
@@ -3,19 +3,18 @@ import java.util.Scanner;
 
 public class Test {
     public static void main(String[] args) {
-        UnboundedQueue q = new UnboundedQueue();
-        int count = 0;
-        try (Scanner s = new Scanner(System.in)) {
+        try (UnboundedQueue q = new UnboundedQueue(); Scanner s = new Scanner(System.in)) {
+            int count = 0;
             while (s.hasNextInt()) {
                 count++;
                 if(count % 3 == 0) q.dequeue();
                 q.enqueue(s.nextInt());
             }
-        }
 
-        Iterator<Integer> it = q.elements();
-        while (it.hasNext()) {
-            System.out.println(it.next());
+            Iterator<Integer> it = q.elements();
+            while (it.hasNext()) {
+                System.out.println(it.next());
+            }
         }
     }
 }
\ No newline at end of file
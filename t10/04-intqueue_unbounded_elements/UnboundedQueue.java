@@ -1,43 +1,158 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 /**
- * 
+ *
  * OVERVIEW: Le instanze di UnboundedQueue sono strutture dati di tipo coda, le
  * UnboundedQueue non sono limitate e sono modificabili.
- * 
+ *
  * Una coda tipica è [x_1, x_2, ..., x_k], in cui x_k è l'ultimo elemento che è
  * stato inserito nella coda e x_1 è il primo elemento che è stato inserito e il
  * primo che verrà letto.
- * 
+ *
  * A seguito di una operazione di enqueue la coda sarà [x_1, x_2, ..., x_k,
  * x_k+1], mentre a seguito di una operazione di dequeue la coda sarà [x_2, ...,
  * x_k, x_k].
- * 
- * Funzione di astrazione: AF(els) = [els.get(0), els.get(1), ... ,
- * els.get(els.size-1)] se els.size > 0, [] se els.size = 0
- * 
- * Invariante di rappresentazione: els != null, ogni elemento di els != null
- * 
+ *
+ * Gli elementi sono memorizzati in una lista concatenata di blocchi di
+ * CHUNK_SIZE int: enqueue e dequeue costano O(1) e non creano oggetti, tranne
+ * un nuovo blocco ogni CHUNK_SIZE inserimenti.
+ *
+ * Se costruita indicando una soglia e una cartella, la coda tiene in memoria
+ * al più maxHeapChunks blocchi: quando tail è pieno e la soglia è raggiunta,
+ * tail viene scritto su disco e il suo array viene riusato per il blocco
+ * successivo. I blocchi scritti su disco sono raccolti in segmenti, file da
+ * SEGMENT_CHUNKS blocchi mappati in memoria per intero una volta sola: ogni
+ * blocco occupa una posizione del segmento in cui viene scritto. Un blocco su
+ * disco viene riletto, nell'array del blocco appena consumato, quando il
+ * consumatore lo raggiunge; il generatore lo legge direttamente dalla
+ * mappatura. Un segmento i cui blocchi sono stati tutti consumati viene
+ * riusato per i blocchi successivi, o eliminato se ce n'è già uno da riusare.
+ * L'ordine FIFO e i valori restituiti da size ed elements non cambiano. Anche
+ * il blocco spare conta fra i maxHeapChunks blocchi in memoria.
+ *
+ * Una coda che scrive su disco va chiusa con close, ad esempio con
+ * try-with-resources: i segmenti rimasti vengono eliminati solo da close, e
+ * la loro mappatura viene rilasciata solo quando il garbage collector
+ * raccoglie i segmenti che close ha tolto alla coda.
+ *
+ * Funzione di astrazione: AF(head, headIndex, size) = i primi size elementi
+ * della sequenza head.values[headIndex], ..., head.values[CHUNK_SIZE - 1],
+ * head.next.values[0], ..., head.next.values[CHUNK_SIZE - 1], ... [] se size =
+ * 0, dove per un blocco c scritto su disco c.values[i] è l'int in posizione
+ * c.offset + i di c.segment
+ *
+ * Invariante di rappresentazione: head != null, tail != null, tail è
+ * raggiungibile da head seguendo next e tail.next == null, 0 <= headIndex <
+ * CHUNK_SIZE, 0 <= tailIndex <= CHUNK_SIZE, size è il numero di posizioni fra
+ * (head, headIndex) compresa e (tail, tailIndex) esclusa, ogni blocco ha
+ * values != null oppure segment != null ma non entrambi, head e tail hanno
+ * values != null, heapChunks è il numero di blocchi con values != null più 1
+ * se spare != null ed è al più maxHeapChunks, spare se non è null ha values
+ * != null e non è raggiungibile da head. segments contiene tutti i segmenti su disco, fra cui
+ * writing e spareSegment se non sono null; per ogni segmento live è il numero
+ * di blocchi della coda che vi si trovano ed è al più used, che è al più
+ * SEGMENT_CHUNKS; spareSegment, se non è null, ha used == 0
+ *
  * Invariante di astrazione: la coda non è nulla, ne contiene elementi nulli
  */
-public class UnboundedQueue {
+public class UnboundedQueue implements Closeable {
 
-    /** Struttura dati contentente gli elementi della coda */
-    private List<Integer> els;
+    /** Numero di elementi di ogni blocco */
+    private static final int CHUNK_SIZE = 512;
+
+    /** Numero di blocchi di ogni segmento su disco */
+    private static final int SEGMENT_CHUNKS = 256;
+
+    /** Blocco che contiene l'elemento in testa alla coda */
+    private Chunk head;
+
+    /** Posizione dell'elemento in testa alla coda in head */
+    private int headIndex;
+
+    /** Ultimo blocco della coda */
+    private Chunk tail;
+
+    /** Prima posizione libera in tail */
+    private int tailIndex;
+
+    /** Numero di elementi della coda */
+    private int size;
+
+    /** Blocco già svuotato, riusato dal prossimo enqueue che ne ha bisogno */
+    private Chunk spare;
+
+    /** Numero di blocchi in memoria, della coda o spare */
+    private int heapChunks;
+
+    /** Numero massimo di blocchi in memoria, oltre il quale si scrive su disco */
+    private final int maxHeapChunks;
+
+    /** Cartella dei segmenti su disco, null se non si scrive su disco */
+    private final Path spillDirectory;
+
+    /** Segmenti presenti su disco */
+    private final List<Segment> segments = new ArrayList<>();
+
+    /** Segmento in cui vengono scritti i blocchi, null se non ce n'è uno */
+    private Segment writing;
+
+    /** Segmento già svuotato, riusato quando writing è pieno */
+    private Segment spareSegment;
 
     /**
      * Post-condizioni: Inizializza this affinchè rappresenti una nuova coda vuota
-     * 
-     * Preservazione RI: preserva l'invariante di rappresentazione poiche
-     * rappresenta sempre la UnboundedQueue: [] che è diversa da null e non contiene
-     * elementi null
-     * 
-     * Correttezza: AF(els) = [] se els.size = 0
+     *
+     * Preservazione RI: preserva l'invariante di rappresentazione poiche head e
+     * tail sono lo stesso blocco non null e tutti gli indici e size valgono 0
+     *
+     * Correttezza: AF(head, 0, 0) = []
      */
     public UnboundedQueue() {
-        els = new LinkedList<>();
+        head = tail = new Chunk(new int[CHUNK_SIZE]);
+        heapChunks = 1;
+        maxHeapChunks = Integer.MAX_VALUE;
+        spillDirectory = null;
+        assert repOk();
+    }
+
+    /**
+     * Post-condizioni: Inizializza this affinchè rappresenti una nuova coda vuota
+     * che tiene in memoria al più heapElements elementi, arrotondati per eccesso a
+     * un multiplo di CHUNK_SIZE e comunque almeno due blocchi; i blocchi
+     * successivi vengono scritti in segmenti temporanei nella cartella
+     * spillDirectory.
+     * Solleva IllegalArgumentException se heapElements non è positivo o
+     * spillDirectory non è una cartella, NullPointerException se spillDirectory è
+     * null
+     *
+     * Preservazione RI: come il costruttore senza parametri, con maxHeapChunks >=
+     * 2 così che head e tail possano restare sempre in memoria
+     *
+     * Correttezza: AF(head, 0, 0) = []
+     */
+    public UnboundedQueue(int heapElements, Path spillDirectory) {
+        Objects.requireNonNull(spillDirectory);
+        if (heapElements <= 0)
+            throw new IllegalArgumentException("heapElements deve essere maggiore di 0");
+        if (!Files.isDirectory(spillDirectory))
+            throw new IllegalArgumentException(spillDirectory + " non è una cartella");
+        head = tail = new Chunk(new int[CHUNK_SIZE]);
+        heapChunks = 1;
+        maxHeapChunks = Math.max(2, (heapElements - 1) / CHUNK_SIZE + 1);
+        this.spillDirectory = spillDirectory;
         assert repOk();
     }
 
@@ -46,66 +161,109 @@ public class UnboundedQueue {
         return new QueueElementsGenerator(this);
     }
 
-    /**GENERATORE */
+    /** GENERATORE */
     static class QueueElementsGenerator implements Iterator<Integer> {
-        UnboundedQueue q;
+        Chunk chunk;
         int index;
+        int remaining;
+        /** Mappatura del segment di chunk se il blocco è su disco, altrimenti null */
+        IntBuffer spilled;
+        /** Posizione di chunk in spilled */
+        int offset;
 
         QueueElementsGenerator(UnboundedQueue queue) {
-            this.q = queue;
+            chunk = queue.head;
+            index = queue.headIndex;
+            remaining = queue.size;
         }
 
         @Override
         public boolean hasNext() {
-            return index < q.size();
+            return remaining > 0;
         }
 
         @Override
         public Integer next() {
-            return q.els.get(index++);
+            if (!hasNext())
+                throw new NoSuchElementException();
+            if (index == CHUNK_SIZE) {
+                chunk = chunk.next;
+                index = 0;
+                spilled = chunk.values == null ? chunk.segment.ints : null;
+                offset = chunk.offset;
+            }
+            remaining--;
+            return spilled == null ? chunk.values[index++] : spilled.get(offset + index++);
         }
     }
 
     /**
      * Post-condizioni: restituisce la cardinalità di this
-     * 
-     * Correttezza: dato che ogni elmento di els è un elemento della coda, la
-     * dimensione della coda è la dimensione di els
+     *
+     * Correttezza: size conta gli elementi inseriti e non ancora estratti
      */
     public int size() {
-        return els.size();
+        return size;
     }
 
     /**
      * Effetti collaterali: this è modificato
-     * 
+     *
      * Post-condizioni: Aggiunge l'elemento x alla coda this
-     * 
-     * Preservazione RI: preserva l'invariante di rappresentazione poichè un int non
-     * può mai essere null
-     * 
+     *
+     * Preservazione RI: se tail è pieno viene agganciato un nuovo blocco che
+     * diventa tail, poi l'elemento viene scritto in tail.values[tailIndex] e
+     * tailIndex e size vengono incrementati insieme. Il nuovo blocco è spare, che
+     * è già contato in heapChunks, oppure un blocco nuovo se i blocchi in memoria
+     * sono meno di maxHeapChunks; altrimenti il vecchio tail, che è diverso da
+     * head perché maxHeapChunks >= 2, viene scritto su disco e cede il proprio
+     * array al nuovo tail, quindi heapChunks non cambia. Solleva
+     * UncheckedIOException se la creazione di un segmento non riesce
+     *
      * Correttezza: this = [x_1, x_2, ..., x_k] => this_post = [x_1, x_2, ...,
      * x_k,n]
      */
     public void enqueue(int n) {
-        els.add(n);
+        if (tailIndex == CHUNK_SIZE) {
+            Chunk next;
+            if (spare != null) {
+                next = spare;
+                spare = null;
+            } else if (heapChunks < maxHeapChunks) {
+                next = new Chunk(new int[CHUNK_SIZE]);
+                heapChunks++;
+            } else {
+                next = new Chunk(tail.values);
+                spill(tail);
+            }
+            tail.next = next;
+            tail = next;
+            tailIndex = 0;
+        }
+        tail.values[tailIndex++] = n;
+        size++;
 
         assert repOk();
     }
 
     /**
      * Effetti collaterali: this è modificato se la coda non è vuota
-     * 
+     *
      * Post-condizioni: Rimuove e restituisce l'elemento in testa alla coda this, se
      * presente. this = [x1, x2, ..., x_k], k < n, this = [x2, ..., x_k] solleva
      * EmptyException se la coda è vuota
-     * 
-     * Preservazione RI: preserva l'invariante di rappresentazione poichè se ho una
-     * UnboundedQueue con dimensione diversa da 0 e rimuovo un elemento avrò sempre
-     * una UnboundedQueue valida mentre una queue vuota solleva un'eccezione: this =
-     * [x1,x2, .. , xk], this_post = [x2, ... , xk] se size è maggiore di 0 this =
-     * [], this_post = [] se size è uguale a 0
-     * 
+     *
+     * Preservazione RI: headIndex viene incrementato e size decrementato,
+     * quindi size resta il numero di posizioni fra (head, headIndex) e (tail,
+     * tailIndex); se head è stato letto completamente si passa al blocco
+     * successivo, e se la coda è vuota gli indici tornano all'inizio dell'unico
+     * blocco rimasto. Se il blocco successivo è su disco viene riletto
+     * nell'array del blocco consumato, quindi heapChunks non cambia, altrimenti
+     * il blocco consumato diventa spare e heapChunks diminuisce solo se spare
+     * c'era già, perché il vecchio spare viene lasciato al garbage collector.
+     * Solleva UncheckedIOException se un segmento consumato non può essere
+     * eliminato
+     *
      * Correttezza: this = [x_1, x_2, ..., x_k] => this_post = [x_2, ..., x_k] se
      * size è maggiore di 0, altrimenti solleva EmptyException
      */
@@ -113,31 +271,181 @@ public class UnboundedQueue {
         assert repOk();
         if (size() == 0)
             throw new EmptyException("la coda è vuota");
-        return els.remove(0);
+        int r = head.values[headIndex++];
+        size--;
+        if (size == 0) {
+            headIndex = tailIndex = 0;
+        } else if (headIndex == CHUNK_SIZE) {
+            Chunk consumed = head;
+            head = head.next;
+            headIndex = 0;
+            consumed.next = null;
+            if (head.values == null) {
+                load(head, consumed.values);
+            } else {
+                if (spare != null)
+                    heapChunks--;
+                spare = consumed;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Effetti collaterali: this è modificato
+     *
+     * Post-condizioni: elimina i segmenti su disco e svuota la coda this, che
+     * resta utilizzabile. Solleva UncheckedIOException se un segmento non può
+     * essere eliminato
+     *
+     * Preservazione RI: resta il solo blocco head, in memoria, con indici e size
+     * uguali a 0, oltre a spare, e non restano segmenti
+     *
+     * Correttezza: this_post = []
+     */
+    @Override
+    public void close() {
+        head.next = null;
+        tail = head;
+        headIndex = tailIndex = size = 0;
+        heapChunks = spare != null ? 2 : 1;
+        writing = spareSegment = null;
+        try {
+            while (!segments.isEmpty())
+                Files.deleteIfExists(segments.remove(segments.size() - 1).file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        assert repOk();
+    }
+
+    /**
+     * Pre-condizioni: chunk è pieno e si trova in memoria
+     *
+     * Effetti collaterali: se writing è pieno lo sostituisce con spareSegment o
+     * con un nuovo segmento in spillDirectory, chunk è modificato
+     *
+     * Post-condizioni: scrive chunk.values nella prima posizione libera di
+     * writing, la assegna a chunk e toglie l'array a chunk
+     */
+    private void spill(Chunk chunk) {
+        if (writing == null || writing.used == SEGMENT_CHUNKS) {
+            if (spareSegment != null) {
+                writing = spareSegment;
+                spareSegment = null;
+            } else {
+                writing = createSegment();
+            }
+        }
+        chunk.segment = writing;
+        chunk.offset = writing.used++ * CHUNK_SIZE;
+        writing.live++;
+        writing.ints.duplicate().position(chunk.offset).put(chunk.values);
+        chunk.values = null;
+    }
+
+    /**
+     * Pre-condizioni: chunk si trova su disco, values ha lunghezza CHUNK_SIZE
+     *
+     * Effetti collaterali: chunk è modificato, il segmento di chunk viene
+     * riusato o eliminato se chunk era il suo ultimo blocco ancora da consumare
+     *
+     * Post-condizioni: copia il contenuto del blocco in values e lo assegna a
+     * chunk.values
+     */
+    private void load(Chunk chunk, int[] values) {
+        Segment segment = chunk.segment;
+        segment.ints.duplicate().position(chunk.offset).get(values);
+        chunk.values = values;
+        chunk.segment = null;
+        if (--segment.live > 0)
+            return;
+        // I blocchi vengono consumati nell'ordine in cui sono stati scritti,
+        // quindi nessun blocco della coda si trova più nel segmento
+        segment.used = 0;
+        if (segment == writing)
+            return;
+        if (spareSegment == null) {
+            spareSegment = segment;
+            return;
+        }
+        segments.remove(segment);
+        try {
+            Files.delete(segment.file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Effetti collaterali: crea un file in spillDirectory
+     *
+     * Post-condizioni: restituisce un nuovo segmento vuoto, mappato in memoria in
+     * lettura e scrittura, e lo aggiunge a segments
+     */
+    private Segment createSegment() {
+        try {
+            Path file = Files.createTempFile(spillDirectory, "queue", ".segment");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                IntBuffer ints = channel
+                        .map(FileChannel.MapMode.READ_WRITE, 0, (long) SEGMENT_CHUNKS * CHUNK_SIZE * Integer.BYTES)
+                        .order(ByteOrder.nativeOrder()).asIntBuffer();
+                Segment segment = new Segment(file, ints);
+                segments.add(segment);
+                return segment;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /** Implementa l'invariante di rappresentazione */
     private boolean repOk() {
-        for (int i = 0; i < size(); i++)
-            if (els.get(i) == null)
+        if (head == null || tail == null || tail.next != null || head.values == null || tail.values == null)
+            return false;
+        if (headIndex < 0 || headIndex >= CHUNK_SIZE || tailIndex < 0 || tailIndex > CHUNK_SIZE)
+            return false;
+        int count = -headIndex;
+        int inHeap = 1;
+        for (Chunk c = head; c != tail; c = c.next) {
+            if (c == null || c == spare || (c.values == null) == (c.segment == null))
                 return false;
-
-        return true;
+            if (c.values != null && c != head)
+                inHeap++;
+            count += CHUNK_SIZE;
+        }
+        if (tail != head)
+            inHeap++;
+        int spilled = (count + headIndex) / CHUNK_SIZE + 1 - inHeap;
+        if (spare != null) {
+            if (spare == tail || spare.values == null)
+                return false;
+            inHeap++;
+        }
+        int live = 0;
+        for (Segment segment : segments) {
+            if (segment.live < 0 || segment.live > segment.used || segment.used > SEGMENT_CHUNKS)
+                return false;
+            live += segment.live;
+        }
+        if ((writing != null && !segments.contains(writing)) || (spareSegment != null
+                && (!segments.contains(spareSegment) || spareSegment.used != 0)))
+            return false;
+        return count + tailIndex == size && inHeap == heapChunks && heapChunks <= maxHeapChunks && live == spilled;
     }
 
     /** Implementa la funzione di astrazione */
     @Override
     public String toString() {
-        String repr = "IntQueue : [";
-        int i;
-
-        for (i = 0; i < size() - 1; i++)
-            repr += els.get(i) + ", ";
-
-        if (size() > 0)
-            repr += els.get(i);
-
-        return repr += "]";
+        StringBuilder repr = new StringBuilder("IntQueue : [");
+        Iterator<Integer> it = elements();
+        while (it.hasNext()) {
+            repr.append(it.next());
+            if (it.hasNext())
+                repr.append(", ");
+        }
+        return repr.append("]").toString();
     }
 
     @Override
@@ -150,10 +458,42 @@ public class UnboundedQueue {
         if (queue.size() != size())
             return false;
 
-        for (int i = 0; i < size(); i++)
-            if (queue.els.get(i) != els.get(i))
+        Iterator<Integer> mine = elements();
+        Iterator<Integer> other = queue.elements();
+        while (mine.hasNext())
+            if (mine.next().intValue() != other.next().intValue())
                 return false;
 
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * Blocco di elementi della coda, in memoria (values) oppure su disco, a
+     * partire dall'int offset di segment
+     */
+    static final class Chunk {
+        int[] values;
+        Segment segment;
+        int offset;
+        Chunk next;
+
+        Chunk(int[] values) {
+            this.values = values;
+        }
+    }
+
+    /** File su disco che contiene SEGMENT_CHUNKS blocchi, mappato in ints */
+    static final class Segment {
+        final Path file;
+        final IntBuffer ints;
+        /** Numero di posizioni già scritte */
+        int used;
+        /** Numero di blocchi della coda che si trovano nel segmento */
+        int live;
+
+        Segment(Path file, IntBuffer ints) {
+            this.file = file;
+            this.ints = ints;
+        }
+    }
+}